@@ -0,0 +1,43 @@
+package org.apache.playframework.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 实体缓存值，记录加载时间与加载耗时，用于过期前概率提前刷新
+ * @author willenfoo
+ *
+ */
+public class CacheValue {
+
+	private final Object value;
+
+	/* 加载完成时间 */
+	private final long loadTime;
+
+	/* 加载耗时（毫秒） */
+	private final long loadMillis;
+
+	public CacheValue(Object value, long loadTime, long loadMillis) {
+		this.value = value;
+		this.loadTime = loadTime;
+		this.loadMillis = loadMillis;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * 是否提前刷新：越接近过期、加载越慢，刷新概率越高（now + loadMillis * beta * -ln(rand) &gt;= expireTime）
+	 * @param timeToLiveMillis 过期时间
+	 * @param beta 提前系数，0 不提前刷新
+	 * @return
+	 */
+	public boolean shouldRefresh(long timeToLiveMillis, double beta) {
+		if (beta <= 0 || timeToLiveMillis <= 0) {
+			return false;
+		}
+		double gap = Math.max(loadMillis, 1) * beta * -Math.log(ThreadLocalRandom.current().nextDouble());
+		return System.currentTimeMillis() + gap >= loadTime + timeToLiveMillis;
+	}
+}
@@ -0,0 +1,33 @@
+package org.apache.playframework.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 实体主键查询缓存配置，标注在实体类上，BaseServiceImpl 的 selectById / selectBatchIds 读取缓存
+ * @author willenfoo
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EntityCache {
+
+	/**
+	 * 过期时间（秒）
+	 */
+	int timeToLiveSeconds() default 300;
+
+	/**
+	 * 最大缓存条数
+	 */
+	int maxEntries() default 10000;
+
+	/**
+	 * 淘汰策略 LRU、LFU、FIFO
+	 */
+	String eviction() default "LRU";
+}
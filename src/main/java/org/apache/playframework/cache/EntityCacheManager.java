@@ -0,0 +1,75 @@
+package org.apache.playframework.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.cglib.beans.BeanCopier;
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
+
+/**
+ * 实体缓存管理，每个标注 {@link EntityCache} 的实体一个 ehcache 缓存
+ * @author willenfoo
+ *
+ */
+public class EntityCacheManager {
+
+	private static final String CACHE_PREFIX = "entity:";
+
+	/* 未标注 EntityCache 的实体 */
+	private static final Object NONE = new Object();
+
+	private static final Map<Class<?>, Object> CACHES = new ConcurrentHashMap<Class<?>, Object>();
+
+	private static final Map<Class<?>, BeanCopier> COPIERS = new ConcurrentHashMap<Class<?>, BeanCopier>();
+
+	/**
+	 * 获取实体缓存，实体未标注 EntityCache 返回 null
+	 * @param entityClass
+	 * @return
+	 */
+	public static Ehcache getCache(Class<?> entityClass) {
+		Object cache = CACHES.get(entityClass);
+		if (cache == null) {
+			EntityCache config = entityClass.getAnnotation(EntityCache.class);
+			if (config == null) {
+				cache = NONE;
+			} else {
+				CacheConfiguration configuration = new CacheConfiguration(CACHE_PREFIX + entityClass.getName(),
+						config.maxEntries()).eternal(false).timeToLiveSeconds(config.timeToLiveSeconds())
+								.memoryStoreEvictionPolicy(MemoryStoreEvictionPolicy.fromString(config.eviction()));
+				cache = CacheManager.create().addCacheIfAbsent(new Cache(configuration));
+			}
+			CACHES.put(entityClass, cache);
+		}
+		return cache == NONE ? null : (Ehcache) cache;
+	}
+
+	/**
+	 * 浅拷贝实体，缓存中的对象不直接暴露给调用方
+	 * @param entity
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T copy(T entity) {
+		if (entity == null) {
+			return null;
+		}
+		Class<?> entityClass = entity.getClass();
+		BeanCopier copier = COPIERS.get(entityClass);
+		if (copier == null) {
+			copier = BeanCopier.create(entityClass, entityClass, false);
+			COPIERS.put(entityClass, copier);
+		}
+		try {
+			T target = (T) entityClass.newInstance();
+			copier.copy(entity, target, null);
+			return target;
+		} catch (Exception e) {
+			throw new IllegalStateException("Can not copy entity " + entityClass.getName(), e);
+		}
+	}
+}
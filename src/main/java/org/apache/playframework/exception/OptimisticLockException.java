@@ -0,0 +1,37 @@
+package org.apache.playframework.exception;
+
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+
+/**
+ * <p>
+ * 乐观锁冲突：按主键更新时记录已被修改或删除，实体版本与数据库不一致
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class OptimisticLockException extends MybatisPlusException {
+
+	private static final long serialVersionUID = 1L;
+
+	/* 更新的主键 */
+	private final Object id;
+
+	/* 实体版本 */
+	private final Object version;
+
+	public OptimisticLockException(Class<?> entityClass, Object id, Object version) {
+		super(String.format("Error: %s id=%s has been modified or deleted, version %s is stale.", entityClass.getName(),
+				id, version));
+		this.id = id;
+		this.version = version;
+	}
+
+	public Object getId() {
+		return id;
+	}
+
+	public Object getVersion() {
+		return version;
+	}
+
+}
@@ -0,0 +1,29 @@
+package org.apache.playframework.mybatisplus.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * 逻辑删除字段，标注在实体属性上
+ * </p>
+ * <p>
+ * AutoSqlInjector 注入的按主键查询、更新及条件查询语句在 WHERE 开头增加 字段=未删除值 条件；
+ * 未标注时按 AutoSqlInjector 配置的字段名约定识别。
+ * </p>
+ * @author willenfoo
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface TableLogic {
+
+	/**
+	 * 未删除值，数字原样输出，其它按字符串输出
+	 */
+	String value() default "N";
+}
@@ -0,0 +1,25 @@
+package org.apache.playframework.mybatisplus.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * 乐观锁版本字段，标注在 Integer、Long 或 Short 类型的实体属性上
+ * </p>
+ * <p>
+ * AutoSqlInjector 注入的更新语句 SET 版本字段+1，按主键更新且实体版本不为空时 WHERE 增加 版本字段=实体版本 条件；
+ * 未标注时按 AutoSqlInjector 配置的 versionColumn 字段名约定识别（默认不开启）。BaseServiceImpl 插入时版本为空的设为 1。
+ * </p>
+ * @author willenfoo
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Version {
+
+}
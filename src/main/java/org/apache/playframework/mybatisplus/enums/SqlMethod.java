@@ -29,6 +29,13 @@ public enum SqlMethod {
 	 * 插入
 	 */
 	INSERT_ONE("insert", "插入一条数据", "<script>INSERT INTO %s %s VALUES %s</script>"),
+	INSERT_BATCH("insertBatchValues", "单条语句插入多条数据", "<script>INSERT INTO %s %s VALUES %s</script>"),
+
+	/**
+	 * 插入或更新，SQL 由方言决定
+	 */
+	UPSERT("upsert", "插入或根据主键更新一条数据", "<script>%s</script>"),
+	UPSERT_BATCH("upsertBatch", "插入或根据主键更新多条数据", "<script>%s</script>"),
 
 	/**
 	 * 删除
@@ -41,19 +48,21 @@ public enum SqlMethod {
 	/**
 	 * 修改
 	 */
-	UPDATE_BY_ID("updateById", "根据ID 修改数据", "<script>UPDATE %s %s WHERE %s=#{%s} "+getIsDeleteSql()+"</script>"),
+	UPDATE_BY_ID("updateById", "根据ID 修改数据", "<script>UPDATE %s %s WHERE %s%s=#{%s}%s</script>"),
+	UPDATE_ALL_COLUMN_BY_ID("updateAllColumnById", "根据ID 修改全部字段", "<script>UPDATE %s %s WHERE %s%s=#{%s}%s</script>"),
 	UPDATE("update", "根据 whereEntity 条件，更新记录", "<script>UPDATE %s %s %s</script>"),
 
 	/**
 	 * 查询
 	 */
-	SELECT_BY_ID("selectById", "根据ID 查询一条数据", "SELECT %s FROM %s WHERE %s=#{%s} "+getIsDeleteSql()),
+	SELECT_BY_ID("selectById", "根据ID 查询一条数据", "SELECT %s FROM %s WHERE %s%s=#{%s}"),
 	SELECT_BY_MAP("selectByMap", "根据columnMap 查询一条数据", "<script>SELECT %s FROM %s %s</script>"),
-	SELECT_BATCH_BY_IDS("selectBatchIds", "根据ID集合，批量查询数据", "<script>SELECT %s FROM %s WHERE %s IN (%s) "+getIsDeleteSql()+"</script>"),
+	SELECT_BATCH_BY_IDS("selectBatchIds", "根据ID集合，批量查询数据", "<script>SELECT %s FROM %s WHERE %s%s IN (%s)</script>"),
 	SELECT_ONE("selectOne", "查询满足条件一条数据", "<script>SELECT %s FROM %s %s</script>"),
 	SELECT_COUNT("selectCount", "查询满足条件总记录数", "<script>SELECT COUNT(1) FROM %s %s</script>"),
 	SELECT_LIST("selectList", "查询满足条件所有数据", "<script>SELECT %s FROM %s %s</script>"),
-	SELECT_PAGE("selectPage", "查询满足条件所有数据（并翻页）", "<script>SELECT %s FROM %s %s</script>");
+	SELECT_PAGE("selectPage", "查询满足条件所有数据（并翻页）", "<script>SELECT %s FROM %s %s</script>"),
+	SELECT_STREAM("selectStream", "流式查询满足条件所有数据", "<script>SELECT %s FROM %s %s</script>");
 
 	private final String method;
 	
@@ -83,7 +92,12 @@ public enum SqlMethod {
 		return this.sql;
 	}
 
+	/**
+	 * 逻辑删除条件已按实体生成，见 @TableLogic 与 AutoSqlInjector#setLogicDeleteColumn，保留供外部调用
+	 */
+	@Deprecated
 	public static String getIsDeleteSql() {
 		return " and is_delete = 'N' ";
 	}
+
 }
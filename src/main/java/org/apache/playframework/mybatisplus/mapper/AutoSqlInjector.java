@@ -15,11 +15,18 @@
  */
 package org.apache.playframework.mybatisplus.mapper;
 
+import java.io.File;
+import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -28,13 +35,19 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.defaults.RawSqlSource;
 import org.apache.ibatis.session.Configuration;
+import org.apache.playframework.mybatisplus.annotations.TableLogic;
+import org.apache.playframework.mybatisplus.annotations.Version;
 import org.apache.playframework.mybatisplus.enums.SqlMethod;
+import org.apache.playframework.mybatisplus.toolkit.SqlSegments;
+import org.apache.playframework.mybatisplus.toolkit.TableVersionHelper;
+import org.springframework.beans.factory.DisposableBean;
 
 import com.baomidou.mybatisplus.entity.GlobalConfiguration;
 import com.baomidou.mybatisplus.entity.TableFieldInfo;
@@ -42,6 +55,7 @@ import com.baomidou.mybatisplus.entity.TableInfo;
 import com.baomidou.mybatisplus.enums.DBType;
 import com.baomidou.mybatisplus.enums.FieldStrategy;
 import com.baomidou.mybatisplus.enums.IdType;
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
 import com.baomidou.mybatisplus.mapper.BaseMapper;
 import com.baomidou.mybatisplus.mapper.ISqlInjector;
 import com.baomidou.mybatisplus.toolkit.SqlReservedWords;
@@ -55,10 +69,16 @@ import com.baomidou.mybatisplus.toolkit.TableInfoHelper;
  * @author hubin sjy
  * @Date 2016-09-09
  */
-public class AutoSqlInjector implements ISqlInjector {
+public class AutoSqlInjector implements ISqlInjector, DisposableBean {
 
 	private static final Log logger = LogFactory.getLog(AutoSqlInjector.class);
 
+	/* OGNL 调用 SqlSegments 静态方法的前缀 */
+	private static final String SQL_SEGMENTS = "@" + SqlSegments.class.getName() + "@";
+
+	/* 注入脚本生成逻辑版本，修改生成逻辑时递增，使磁盘缓存失效 */
+	private static final int SCRIPT_VERSION = 2;
+
 	protected Configuration configuration;
 
 	protected LanguageDriver languageDriver;
@@ -67,6 +87,51 @@ public class AutoSqlInjector implements ISqlInjector {
 
 	protected DBType dbType = DBType.MYSQL;
 
+	/* 流式查询 fetchSize，MySQL 固定为 Integer.MIN_VALUE */
+	protected int streamFetchSize = 1000;
+
+	/* EntityWrapper 动态 SQL 缓存条数，0 关闭 */
+	protected int wrapperSqlCacheSize = 256;
+
+	/* 逻辑删除字段约定，实体未标注 @TableLogic 时按字段名识别，null 关闭约定 */
+	protected String logicDeleteColumn = "is_delete";
+
+	/* 约定逻辑删除字段的未删除值 */
+	protected String logicNotDeleteValue = "N";
+
+	/* selectBatchIds / deleteBatchIds 的 ID 个数按 2 的幂分桶，复用预编译语句 */
+	protected boolean idListBucket = true;
+
+	/* 乐观锁版本字段约定，实体未标注 @Version 时按字段名识别数值字段，默认 null 只识别 @Version */
+	protected String versionColumn;
+
+	/* 当前注入表的乐观锁版本字段，没有时为 null */
+	protected TableFieldInfo versionField;
+
+	/* 注入语句延迟到第一次执行时解析 */
+	protected boolean lazySqlSource = false;
+
+	/* 延迟解析时在 ForkJoinPool 后台并行预先解析 */
+	protected boolean lazyWarmup = true;
+
+	/* 注入脚本磁盘缓存，为 null 时关闭 */
+	protected InjectScriptCache scriptCache;
+
+	/* 当前注入的 Mapper */
+	protected String currentMapper;
+
+	/* 当前注入实体的元数据摘要，未启用缓存时为 null */
+	protected String scriptMetadata;
+
+	/* Mapper - {注入耗时纳秒, 注入语句数} */
+	private final Map<String, long[]> injectTimings = Collections.synchronizedMap(new LinkedHashMap<String, long[]>());
+
+	/* 当前 Mapper 已注入语句数 */
+	private int injectedStatements;
+
+	/* 当前注入表的逻辑删除条件，如 is_delete='N'，表不支持逻辑删除时为 null */
+	protected String logicDeleteSql;
+
 	/**
 	 * CRUD注入后给予标识 注入过后不再注入
 	 *
@@ -77,8 +142,16 @@ public class AutoSqlInjector implements ISqlInjector {
 		String className = mapperClass.toString();
 		Set<String> mapperRegistryCache = GlobalConfiguration.getMapperRegistryCache(builderAssistant.getConfiguration());
 		if (!mapperRegistryCache.contains(className)) {
+			long start = System.nanoTime();
+			injectedStatements = 0;
 			inject(builderAssistant, mapperClass);
 			mapperRegistryCache.add(className);
+			long nanos = System.nanoTime() - start;
+			injectTimings.put(mapperClass.getName(), new long[] { nanos, injectedStatements });
+			if (logger.isDebugEnabled()) {
+				logger.debug(String.format("Injected %d statements into %s in %.2f ms", injectedStatements,
+						mapperClass.getName(), nanos / 1000000.0));
+			}
 		}
 	}
 
@@ -99,6 +172,12 @@ public class AutoSqlInjector implements ISqlInjector {
 		}
 		Class<?> modelClass = extractModelClass(mapperClass);
 		TableInfo table = TableInfoHelper.initTableInfo(builderAssistant, modelClass);
+		this.logicDeleteSql = null == table ? null : logicDeleteSql(modelClass, table);
+		this.versionField = null == table ? null : versionField(modelClass, table);
+		TableVersionHelper.register(modelClass, null == versionField ? null : versionField.getProperty());
+		this.currentMapper = mapperClass.getName();
+		this.scriptMetadata = null == scriptCache || null == table ? null
+				: InjectScriptCache.digest(scriptMetadata(table));
 
 		/**
 		 * 没有指定主键，默认方法不能使用
@@ -106,6 +185,9 @@ public class AutoSqlInjector implements ISqlInjector {
 		if (null != table && null != table.getKeyProperty()) {
 			/* 插入 */
 			this.injectInsertOneSql(mapperClass, modelClass, table);
+			this.injectInsertBatchSql(mapperClass, modelClass, table);
+			this.injectUpsertSql(false, mapperClass, modelClass, table);
+			this.injectUpsertSql(true, mapperClass, modelClass, table);
 
 			/* 删除 */
 			this.injectDeleteSql(mapperClass, modelClass, table);
@@ -115,6 +197,7 @@ public class AutoSqlInjector implements ISqlInjector {
 
 			/* 修改 */
 			this.injectUpdateByIdSql(mapperClass, modelClass, table);
+			this.injectUpdateAllColumnByIdSql(mapperClass, modelClass, table);
 			this.injectUpdateSql(mapperClass, modelClass, table);
 
 			/* 查询 */
@@ -125,6 +208,7 @@ public class AutoSqlInjector implements ISqlInjector {
 			this.injectSelectCountSql(mapperClass, modelClass, table);
 			this.injectSelectListSql(SqlMethod.SELECT_LIST, mapperClass, modelClass, table);
 			this.injectSelectListSql(SqlMethod.SELECT_PAGE, mapperClass, modelClass, table);
+			this.injectSelectStreamSql(mapperClass, modelClass, table);
 
 			/* 自定义方法 */
 			this.inject(configuration, builderAssistant, mapperClass, modelClass, table);
@@ -177,10 +261,6 @@ public class AutoSqlInjector implements ISqlInjector {
 		 * </trim>
 		 */
 		KeyGenerator keyGenerator = new NoKeyGenerator();
-		StringBuilder fieldBuilder = new StringBuilder();
-		StringBuilder placeholderBuilder = new StringBuilder();
-		fieldBuilder.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
-		placeholderBuilder.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
 		String keyProperty = null;
 		String keyColumn = null;
 		if (table.getIdType() == IdType.AUTO) {
@@ -188,30 +268,242 @@ public class AutoSqlInjector implements ISqlInjector {
 			keyGenerator = new Jdbc3KeyGenerator();
 			keyProperty = table.getKeyProperty();
 			keyColumn = table.getKeyColumn();
-		} else {
-			/* 用户输入自定义ID */
-			fieldBuilder.append(table.getKeyColumn()).append(",");
-			placeholderBuilder.append("#{").append(table.getKeyProperty()).append("},");
 		}
-		List<TableFieldInfo> fieldList = table.getFieldList();
-		for (TableFieldInfo fieldInfo : fieldList) {
-			fieldBuilder.append(convertIfTagIgnored(fieldInfo, false));
-			fieldBuilder.append(fieldInfo.getColumn()).append(",");
-			fieldBuilder.append(convertIfTagIgnored(fieldInfo, true));
-			placeholderBuilder.append(convertIfTagIgnored(fieldInfo, false));
-			placeholderBuilder.append("#{").append(fieldInfo.getEl()).append("},");
-			placeholderBuilder.append(convertIfTagIgnored(fieldInfo, true));
-		}
-		fieldBuilder.append("\n</trim>");
-		placeholderBuilder.append("\n</trim>");
 		SqlMethod sqlMethod = SqlMethod.INSERT_ONE;
-		String sql = String.format(sqlMethod.getSql(), table.getTableName(), fieldBuilder.toString(),
-				placeholderBuilder.toString());
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			StringBuilder fieldBuilder = new StringBuilder();
+			StringBuilder placeholderBuilder = new StringBuilder();
+			fieldBuilder.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
+			placeholderBuilder.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
+			if (table.getIdType() != IdType.AUTO) {
+				/* 用户输入自定义ID */
+				fieldBuilder.append(table.getKeyColumn()).append(",");
+				placeholderBuilder.append("#{").append(table.getKeyProperty()).append("},");
+			}
+			List<TableFieldInfo> fieldList = table.getFieldList();
+			for (TableFieldInfo fieldInfo : fieldList) {
+				fieldBuilder.append(convertIfTagIgnored(fieldInfo, false));
+				fieldBuilder.append(fieldInfo.getColumn()).append(",");
+				fieldBuilder.append(convertIfTagIgnored(fieldInfo, true));
+				placeholderBuilder.append(convertIfTagIgnored(fieldInfo, false));
+				placeholderBuilder.append("#{").append(fieldInfo.getEl()).append("},");
+				placeholderBuilder.append(convertIfTagIgnored(fieldInfo, true));
+			}
+			fieldBuilder.append("\n</trim>");
+			placeholderBuilder.append("\n</trim>");
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(),
+					fieldBuilder.toString(), placeholderBuilder.toString()));
+		}
+		SqlSource sqlSource = createSqlSource(sql, modelClass);
+		this.addInsertMappedStatement(mapperClass, modelClass, sqlMethod.getMethod(), sqlSource, keyGenerator, keyProperty,
+				keyColumn);
+	}
+
+	/**
+	 * <p>
+	 * 注入多行插入 SQL 语句，单条语句插入整个集合
+	 * </p>
+	 * <p>
+	 * INSERT INTO table (xx,yy) VALUES (#{et.xx},#{et.yy}),(...)，ORACLE 不支持多行 VALUES 不注入。
+	 * 字段列表按第一行的字段策略生成，为空的字段不写入，使用列的 DEFAULT 值；其它行在该字段为空时写入 NULL，
+	 * 因此调用方需按非空字段分组后再调用（见 BaseServiceImpl.insertBatch）
+	 * </p>
+	 *
+	 * @param mapperClass
+	 * @param modelClass
+	 * @param table
+	 */
+	protected void injectInsertBatchSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
+		if (DBType.ORACLE.equals(dbType)) {
+			return;
+		}
+		KeyGenerator keyGenerator = new NoKeyGenerator();
+		String keyProperty = null;
+		String keyColumn = null;
+		if (table.getIdType() == IdType.AUTO) {
+			/* 自增主键 */
+			keyGenerator = new Jdbc3KeyGenerator();
+			keyProperty = table.getKeyProperty();
+			keyColumn = table.getKeyColumn();
+		}
+		SqlMethod sqlMethod = SqlMethod.INSERT_BATCH;
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			StringBuilder fieldBuilder = new StringBuilder();
+			StringBuilder placeholderBuilder = new StringBuilder();
+			fieldBuilder.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
+			placeholderBuilder.append("\n<foreach item=\"et\" index=\"index\" collection=\"list\" separator=\",\">");
+			placeholderBuilder.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
+			if (table.getIdType() != IdType.AUTO) {
+				/* 用户输入自定义ID */
+				fieldBuilder.append(table.getKeyColumn()).append(",");
+				placeholderBuilder.append("#{et.").append(table.getKeyProperty()).append("},");
+			}
+			List<TableFieldInfo> fieldList = table.getFieldList();
+			for (TableFieldInfo fieldInfo : fieldList) {
+				/* 按第一行判断，所有行字段列表一致 */
+				fieldBuilder.append(convertIfTag(true, fieldInfo, "list[0].", false));
+				fieldBuilder.append(fieldInfo.getColumn()).append(",");
+				fieldBuilder.append(convertIfTag(true, fieldInfo, "list[0].", true));
+				placeholderBuilder.append(convertIfTag(true, fieldInfo, "list[0].", false));
+				placeholderBuilder.append("#{et.").append(fieldInfo.getEl()).append("},");
+				placeholderBuilder.append(convertIfTag(true, fieldInfo, "list[0].", true));
+			}
+			fieldBuilder.append("\n</trim>");
+			placeholderBuilder.append("\n</trim>\n</foreach>");
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(),
+					fieldBuilder.toString(), placeholderBuilder.toString()));
+		}
+		SqlSource sqlSource = createSqlSource(sql, modelClass);
 		this.addInsertMappedStatement(mapperClass, modelClass, sqlMethod.getMethod(), sqlSource, keyGenerator, keyProperty,
 				keyColumn);
 	}
 
+	/**
+	 * <p>
+	 * 注入插入或更新 SQL 语句，MYSQL 使用 INSERT ... ON DUPLICATE KEY UPDATE，ORACLE 使用 MERGE，其它数据库不注入
+	 * </p>
+	 * <p>
+	 * 参数为 Map：单条 et 为实体，批量 list 为实体集合；insertOnly 为只在插入时写入的属性（如创建时间），更新时跳过。
+	 * 单条按字段策略只写非空字段；批量插入时写入全部字段，更新时空值不覆盖已有值（IFNULL / COALESCE），忽略策略字段除外。
+	 * 乐观锁版本字段插入时取实体值，更新时为 版本+1，不检查实体版本；需要检查版本时使用 updateById。
+	 * </p>
+	 *
+	 * @param batch
+	 *            是否为批量
+	 * @param mapperClass
+	 * @param modelClass
+	 * @param table
+	 */
+	protected void injectUpsertSql(boolean batch, Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
+		if (table.getFieldList().isEmpty() || !(DBType.MYSQL.equals(dbType) || DBType.ORACLE.equals(dbType))) {
+			return;
+		}
+		SqlMethod sqlMethod = batch ? SqlMethod.UPSERT_BATCH : SqlMethod.UPSERT;
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), upsertSql(batch, table)));
+		}
+		SqlSource sqlSource = createSqlSource(sql, Map.class);
+		this.addInsertMappedStatement(mapperClass, modelClass, sqlMethod.getMethod(), sqlSource, new NoKeyGenerator(), null,
+				null);
+	}
+
+	/**
+	 * <p>
+	 * 插入或更新 SQL，不含 &lt;script&gt;
+	 * </p>
+	 *
+	 * @param batch
+	 *            是否为批量
+	 * @param table
+	 * @return String
+	 */
+	protected String upsertSql(boolean batch, TableInfo table) {
+		List<TableFieldInfo> fieldList = table.getFieldList();
+		String keyColumn = table.getKeyColumn();
+		String keyProperty = table.getKeyProperty();
+		StringBuilder columns = new StringBuilder();
+		StringBuilder values = new StringBuilder();
+		StringBuilder updates = new StringBuilder();
+		columns.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n").append(keyColumn).append(",");
+		updates.append("\n<trim suffixOverrides=\",\">\n");
+		boolean oracle = DBType.ORACLE.equals(dbType);
+		if (oracle) {
+			/* 所有字段为空时 SET 不能为空 */
+			String first = fieldList.get(0).getColumn();
+			values.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
+			values.append(batch ? "s." + keyColumn : "#{et." + keyProperty + "}").append(",");
+			updates.append("t.").append(first).append("=t.").append(first).append(",");
+		} else {
+			values.append("\n<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
+			values.append("#{et.").append(keyProperty).append("},");
+			updates.append(keyColumn).append("=VALUES(").append(keyColumn).append("),");
+		}
+		StringBuilder select = new StringBuilder();
+		select.append("SELECT #{et.").append(keyProperty).append("} AS ").append(keyColumn);
+		for (TableFieldInfo fieldInfo : fieldList) {
+			String column = fieldInfo.getColumn();
+			if (!batch) {
+				columns.append(convertIfTag(true, fieldInfo, "et.", false));
+			}
+			columns.append(column).append(",");
+			if (!batch) {
+				columns.append(convertIfTag(true, fieldInfo, null, true));
+				values.append(convertIfTag(true, fieldInfo, "et.", false));
+			}
+			if (oracle && batch) {
+				values.append("s.").append(column).append(",");
+				select.append(", #{et.").append(fieldInfo.getEl()).append("} AS ").append(column);
+			} else {
+				values.append("#{et.").append(fieldInfo.getEl()).append("},");
+			}
+			if (!batch) {
+				values.append(convertIfTag(true, fieldInfo, null, true));
+			}
+			if (null != versionField && column.equals(versionField.getColumn())) {
+				/* 版本字段不取实体值，命中已有记录时在数据库当前值上 +1，使持有旧版本的 updateById 失败 */
+				String current = oracle ? "t." + column : column;
+				updates.append("\n\t").append(current).append("=").append(current).append("+1,");
+				continue;
+			}
+			updates.append(upsertIfTag(fieldInfo, batch));
+			String current = oracle ? "t." + column : column;
+			String value = oracle ? (batch ? "s." + column : "#{et." + fieldInfo.getEl() + "}") : "VALUES(" + column + ")";
+			updates.append(current).append("=");
+			if (batch && fieldInfo.getFieldStrategy() != FieldStrategy.IGNORED) {
+				/* 与单条一致，空值不覆盖已有值 */
+				updates.append(oracle ? "COALESCE(" : "IFNULL(").append(value).append(",").append(current).append(")");
+			} else {
+				updates.append(value);
+			}
+			updates.append(",</if>");
+		}
+		columns.append("\n</trim>");
+		values.append("\n</trim>");
+		updates.append("\n</trim>");
+		StringBuilder sql = new StringBuilder();
+		if (oracle) {
+			sql.append("MERGE INTO ").append(table.getTableName()).append(" t USING (");
+			if (batch) {
+				sql.append("\n<foreach item=\"et\" index=\"index\" collection=\"list\" separator=\" UNION ALL \">\n");
+				sql.append(select).append(" FROM DUAL\n</foreach>\n");
+			} else {
+				sql.append("SELECT #{et.").append(keyProperty).append("} AS ").append(keyColumn).append(" FROM DUAL");
+			}
+			sql.append(") s ON (t.").append(keyColumn).append("=s.").append(keyColumn).append(")");
+			sql.append("\nWHEN MATCHED THEN UPDATE SET ").append(updates);
+			sql.append("\nWHEN NOT MATCHED THEN INSERT ").append(columns).append(" VALUES ").append(values);
+		} else {
+			sql.append("INSERT INTO ").append(table.getTableName()).append(" ").append(columns).append(" VALUES ");
+			if (batch) {
+				sql.append("\n<foreach item=\"et\" index=\"index\" collection=\"list\" separator=\",\">");
+				sql.append(values).append("\n</foreach>");
+			} else {
+				sql.append(values);
+			}
+			sql.append("\nON DUPLICATE KEY UPDATE ").append(updates);
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * <p>
+	 * 插入或更新语句更新部分的判断：跳过 insertOnly 属性，单条时按字段策略跳过空值
+	 * </p>
+	 */
+	protected String upsertIfTag(TableFieldInfo fieldInfo, boolean batch) {
+		String property = fieldInfo.getProperty();
+		String insertOnly = String.format("(insertOnly==null or !insertOnly.contains('%s'))", property);
+		if (batch || fieldInfo.getFieldStrategy() == FieldStrategy.IGNORED) {
+			return String.format("\n\t<if test=\"%s\">", insertOnly);
+		} else if (fieldInfo.getFieldStrategy() == FieldStrategy.NOT_EMPTY) {
+			return String.format("\n\t<if test=\"et.%s!=null and et.%s!='' and %s\">", property, property, insertOnly);
+		}
+		return String.format("\n\t<if test=\"et.%s!=null and %s\">", property, insertOnly);
+	}
+
 	/**
 	 * <p>
 	 * 注入 entity 条件删除 SQL 语句
@@ -223,8 +515,12 @@ public class AutoSqlInjector implements ISqlInjector {
 	 */
 	protected void injectDeleteSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
 		SqlMethod sqlMethod = SqlMethod.DELETE;
-		String sql = String.format(sqlMethod.getSql(), table.getTableName(), deleteSqlWhereEntityWrapper(table));
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null,
+					String.format(sqlMethod.getSql(), table.getTableName(), deleteSqlWhereEntityWrapper(table)));
+		}
+		SqlSource sqlSource = wrapperSqlSource(createSqlSource(sql, modelClass), table, false);
 		this.addDeleteMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource);
 	}
 
@@ -238,8 +534,11 @@ public class AutoSqlInjector implements ISqlInjector {
 	 */
 	protected void injectDeleteByMapSql(Class<?> mapperClass, TableInfo table) {
 		SqlMethod sqlMethod = SqlMethod.DELETE_BY_MAP;
-		String sql = String.format(sqlMethod.getSql(), table.getTableName(), deleteSqlWhereByMap());
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, Map.class);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(), deleteSqlWhereByMap()));
+		}
+		SqlSource sqlSource = createSqlSource(sql, Map.class);
 		this.addDeleteMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource);
 	}
 
@@ -257,14 +556,23 @@ public class AutoSqlInjector implements ISqlInjector {
 		SqlSource sqlSource = null;
 		if (batch) {
 			sqlMethod = SqlMethod.DELETE_BATCH_BY_IDS;
-			StringBuilder ids = new StringBuilder();
-			ids.append("\n<foreach item=\"item\" index=\"index\" collection=\"list\" separator=\",\">");
-			ids.append("#{item}");
-			ids.append("\n</foreach>");
-			String sql = String.format(sqlMethod.getSql(), table.getTableName(), table.getKeyColumn(), ids.toString());
-			sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+			String sql = cachedScript(sqlMethod, null);
+			if (null == sql) {
+				sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(),
+						table.getKeyColumn(), foreachIds()));
+			}
+			String template = cachedScript(sqlMethod, IdListSqlSource.IDS);
+			if (null == template) {
+				template = cacheScript(sqlMethod, IdListSqlSource.IDS, String.format(sqlMethod.getSql(),
+						table.getTableName(), table.getKeyColumn(), IdListSqlSource.IDS));
+			}
+			sqlSource = idListSqlSource(createSqlSource(sql, modelClass), template);
 		} else {
-			String sql = String.format(sqlMethod.getSql(), table.getTableName(), table.getKeyColumn(), table.getKeyColumn());
+			String sql = cachedScript(sqlMethod, null);
+			if (null == sql) {
+				sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(),
+						table.getKeyColumn(), table.getKeyColumn()));
+			}
 			sqlSource = new RawSqlSource(configuration, sql, Object.class);
 		}
 		this.addDeleteMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource);
@@ -281,9 +589,33 @@ public class AutoSqlInjector implements ISqlInjector {
 	 */
 	protected void injectUpdateByIdSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
 		SqlMethod sqlMethod = SqlMethod.UPDATE_BY_ID;
-		String sql = String.format(sqlMethod.getSql(), table.getTableName(), sqlSet(table, null), table.getKeyColumn(),
-				table.getKeyProperty());
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(), sqlSet(table, null),
+					logicDeletePrefix(), table.getKeyColumn(), table.getKeyProperty(), versionWhere()));
+		}
+		SqlSource sqlSource = createSqlSource(sql, modelClass);
+		this.addUpdateMappedStatement(mapperClass, modelClass, sqlMethod.getMethod(), sqlSource);
+	}
+
+	/**
+	 * <p>
+	 * 注入根据主键更新全部字段 SQL 语句，不判断字段是否为空，所有实体 SQL 相同，可使用 JDBC 批量执行
+	 * </p>
+	 *
+	 * @param mapperClass
+	 * @param modelClass
+	 * @param table
+	 */
+	protected void injectUpdateAllColumnByIdSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
+		SqlMethod sqlMethod = SqlMethod.UPDATE_ALL_COLUMN_BY_ID;
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(),
+					sqlSet(table, null, true), logicDeletePrefix(), table.getKeyColumn(), table.getKeyProperty(),
+					versionWhere()));
+		}
+		SqlSource sqlSource = createSqlSource(sql, modelClass);
 		this.addUpdateMappedStatement(mapperClass, modelClass, sqlMethod.getMethod(), sqlSource);
 	}
 
@@ -298,8 +630,12 @@ public class AutoSqlInjector implements ISqlInjector {
 	 */
 	protected void injectUpdateSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
 		SqlMethod sqlMethod = SqlMethod.UPDATE;
-		String sql = String.format(sqlMethod.getSql(), table.getTableName(), sqlSet(table, "et."), sqlWhereEntityWrapper(table));
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), table.getTableName(), sqlSet(table, "et."),
+					sqlWhereEntityWrapper(table)));
+		}
+		SqlSource sqlSource = wrapperSqlSource(createSqlSource(sql, modelClass), table, true);
 		this.addUpdateMappedStatement(mapperClass, modelClass, sqlMethod.getMethod(), sqlSource);
 	}
 
@@ -319,15 +655,25 @@ public class AutoSqlInjector implements ISqlInjector {
 		SqlSource sqlSource = null;
 		if (batch) {
 			sqlMethod = SqlMethod.SELECT_BATCH_BY_IDS;
-			StringBuilder ids = new StringBuilder();
-			ids.append("\n<foreach item=\"item\" index=\"index\" collection=\"list\" separator=\",\">");
-			ids.append("#{item}");
-			ids.append("\n</foreach>");
-			sqlSource = languageDriver.createSqlSource(configuration, String.format(sqlMethod.getSql(),
-					sqlSelectColumns(table, false), table.getTableName(), table.getKeyColumn(), ids.toString()), modelClass);
+			String sql = cachedScript(sqlMethod, null);
+			if (null == sql) {
+				sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), sqlSelectColumns(table, false),
+						table.getTableName(), logicDeletePrefix(), table.getKeyColumn(), foreachIds()));
+			}
+			String template = cachedScript(sqlMethod, IdListSqlSource.IDS);
+			if (null == template) {
+				template = cacheScript(sqlMethod, IdListSqlSource.IDS, String.format(sqlMethod.getSql(),
+						sqlSelectColumns(table, false), table.getTableName(), logicDeletePrefix(), table.getKeyColumn(),
+						IdListSqlSource.IDS));
+			}
+			sqlSource = idListSqlSource(createSqlSource(sql, modelClass), template);
 		} else {
-			sqlSource = new RawSqlSource(configuration, String.format(sqlMethod.getSql(), sqlSelectColumns(table, false),
-					table.getTableName(), table.getKeyColumn(), table.getKeyProperty()), Object.class);
+			String sql = cachedScript(sqlMethod, null);
+			if (null == sql) {
+				sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), sqlSelectColumns(table, false),
+						table.getTableName(), logicDeletePrefix(), table.getKeyColumn(), table.getKeyProperty()));
+			}
+			sqlSource = new RawSqlSource(configuration, sql, Object.class);
 		}
 		this.addSelectMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource, modelClass, table);
 	}
@@ -343,8 +689,12 @@ public class AutoSqlInjector implements ISqlInjector {
 	 */
 	protected void injectSelectByMapSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
 		SqlMethod sqlMethod = SqlMethod.SELECT_BY_MAP;
-		String sql = String.format(sqlMethod.getSql(), sqlSelectColumns(table, false), table.getTableName(), sqlWhereByMap());
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, Map.class);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), sqlSelectColumns(table, false),
+					table.getTableName(), sqlWhereByMap()));
+		}
+		SqlSource sqlSource = createSqlSource(sql, Map.class);
 		this.addSelectMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource, modelClass, table);
 	}
 
@@ -359,9 +709,12 @@ public class AutoSqlInjector implements ISqlInjector {
 	 */
 	protected void injectSelectOneSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
 		SqlMethod sqlMethod = SqlMethod.SELECT_ONE;
-		String sql = String.format(sqlMethod.getSql(), sqlSelectColumns(table, false), table.getTableName(),
-				sqlWhere(table, false));
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), sqlSelectColumns(table, false),
+					table.getTableName(), sqlWhere(table, false)));
+		}
+		SqlSource sqlSource = createSqlSource(sql, modelClass);
 		this.addSelectMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource, modelClass, table);
 	}
 
@@ -376,12 +729,42 @@ public class AutoSqlInjector implements ISqlInjector {
 	 * @param table
 	 */
 	protected void injectSelectListSql(SqlMethod sqlMethod, Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
-		String sql = String.format(sqlMethod.getSql(), sqlSelectColumns(table, true), table.getTableName(),
-				sqlWhereEntityWrapper(table));
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), sqlSelectColumns(table, true),
+					table.getTableName(), sqlWhereEntityWrapper(table)));
+		}
+		SqlSource sqlSource = wrapperSqlSource(createSqlSource(sql, modelClass), table, false);
 		this.addSelectMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource, modelClass, table);
 	}
 
+	/**
+	 * <p>
+	 * 注入EntityWrapper方式流式查询 SQL 语句
+	 * </p>
+	 * <p>
+	 * FORWARD_ONLY 结果集，MySQL 使用 fetchSize = Integer.MIN_VALUE 逐行读取，其它数据库按 streamFetchSize 分批读取
+	 * </p>
+	 *
+	 * @param mapperClass
+	 * @param modelClass
+	 * @param table
+	 */
+	protected void injectSelectStreamSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
+		SqlMethod sqlMethod = SqlMethod.SELECT_STREAM;
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null, String.format(sqlMethod.getSql(), sqlSelectColumns(table, true),
+					table.getTableName(), sqlWhereEntityWrapper(table)));
+		}
+		SqlSource sqlSource = wrapperSqlSource(createSqlSource(sql, modelClass), table, false);
+		Integer fetchSize = DBType.MYSQL.equals(dbType) ? Integer.MIN_VALUE : streamFetchSize;
+		String resultMap = table.getResultMap();
+		this.addMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource, SqlCommandType.SELECT, null, resultMap,
+				null == resultMap ? modelClass : null, new NoKeyGenerator(), null, null, fetchSize,
+				ResultSetType.FORWARD_ONLY);
+	}
+
 	/**
 	 * <p>
 	 * 注入EntityWrapper查询总记录数 SQL 语句
@@ -393,11 +776,232 @@ public class AutoSqlInjector implements ISqlInjector {
 	 */
 	protected void injectSelectCountSql(Class<?> mapperClass, Class<?> modelClass, TableInfo table) {
 		SqlMethod sqlMethod = SqlMethod.SELECT_COUNT;
-		String sql = String.format(sqlMethod.getSql(), table.getTableName(), sqlWhereEntityWrapper(table));
-		SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+		String sql = cachedScript(sqlMethod, null);
+		if (null == sql) {
+			sql = cacheScript(sqlMethod, null,
+					String.format(sqlMethod.getSql(), table.getTableName(), sqlWhereEntityWrapper(table)));
+		}
+		SqlSource sqlSource = wrapperSqlSource(createSqlSource(sql, modelClass), table, false);
 		this.addSelectMappedStatement(mapperClass, sqlMethod.getMethod(), sqlSource, Integer.class, null);
 	}
 
+	/**
+	 * <p>
+	 * 解析注入脚本，lazySqlSource 时返回 {@link LazySqlSource}，并按 lazyWarmup 提交到 ForkJoinPool 后台解析
+	 * </p>
+	 *
+	 * @param script
+	 *            &lt;script&gt; SQL
+	 * @param parameterType
+	 * @return SqlSource
+	 */
+	protected SqlSource createSqlSource(String script, Class<?> parameterType) {
+		if (!lazySqlSource) {
+			return languageDriver.createSqlSource(configuration, script, parameterType);
+		}
+		final LazySqlSource sqlSource = new LazySqlSource(configuration, languageDriver, script, parameterType);
+		if (lazyWarmup) {
+			ForkJoinPool.commonPool().execute(new Runnable() {
+				public void run() {
+					try {
+						sqlSource.materialize();
+					} catch (RuntimeException e) {
+						/* 第一次执行时再次解析并抛出 */
+						logger.warn("Warm up injected sql failed: " + e.getMessage());
+					}
+				}
+			});
+		}
+		return sqlSource;
+	}
+
+	/**
+	 * <p>
+	 * 磁盘缓存中摘要一致的注入脚本，未启用缓存或未命中时返回 null，由调用方生成后调用 {@link #cacheScript}
+	 * </p>
+	 *
+	 * @param sqlMethod
+	 * @param variant
+	 *            同一 SqlMethod 的其它脚本，如 ID 列表模板，没有时为 null
+	 * @return String
+	 */
+	protected String cachedScript(SqlMethod sqlMethod, String variant) {
+		if (null == scriptCache || null == scriptMetadata) {
+			return null;
+		}
+		return scriptCache.get(scriptKey(sqlMethod, variant), scriptHash(sqlMethod, variant));
+	}
+
+	/**
+	 * 记录生成的注入脚本并返回
+	 */
+	protected String cacheScript(SqlMethod sqlMethod, String variant, String script) {
+		if (null != scriptCache && null != scriptMetadata) {
+			scriptCache.put(scriptKey(sqlMethod, variant), scriptHash(sqlMethod, variant), script);
+		}
+		return script;
+	}
+
+	private String scriptKey(SqlMethod sqlMethod, String variant) {
+		String key = currentMapper + "#" + sqlMethod.getMethod();
+		return null == variant ? key : key + "#" + variant;
+	}
+
+	private String scriptHash(SqlMethod sqlMethod, String variant) {
+		return InjectScriptCache.digest(scriptMetadata + '|' + sqlMethod.name() + '|' + sqlMethod.getSql() + '|' + variant);
+	}
+
+	/**
+	 * <p>
+	 * 影响注入脚本的元数据：脚本生成逻辑版本、MyBatis 与 mybatis-plus 版本、LanguageDriver、注入器与配置、表与字段信息
+	 * </p>
+	 */
+	protected String scriptMetadata(TableInfo table) {
+		StringBuilder metadata = new StringBuilder();
+		metadata.append(SCRIPT_VERSION).append('|').append(AutoSqlInjector.class.getPackage().getImplementationVersion());
+		metadata.append('|').append(Configuration.class.getPackage().getImplementationVersion()).append('|');
+		metadata.append(TableInfo.class.getPackage().getImplementationVersion()).append('|');
+		metadata.append(languageDriver.getClass().getName()).append('|').append(getClass().getName()).append('|');
+		metadata.append(dbType).append('|').append(GlobalConfiguration.GlobalConfig(configuration).getFieldStrategy());
+		metadata.append('|').append(table.getTableName()).append('|').append(table.getKeyColumn());
+		metadata.append('|').append(table.getKeyProperty()).append('|').append(table.getIdType());
+		metadata.append('|').append(table.isKeyRelated()).append('|').append(table.getResultMap());
+		for (TableFieldInfo fieldInfo : table.getFieldList()) {
+			metadata.append('|').append(fieldInfo.getColumn()).append(',').append(fieldInfo.getProperty());
+			metadata.append(',').append(fieldInfo.getEl()).append(',').append(fieldInfo.getFieldStrategy());
+			metadata.append(',').append(fieldInfo.isRelated());
+		}
+		metadata.append('|').append(logicDeleteSql).append('|');
+		metadata.append(null == versionField ? null : versionField.getColumn());
+		return metadata.toString();
+	}
+
+	/**
+	 * ID 列表 foreach
+	 */
+	protected String foreachIds() {
+		StringBuilder ids = new StringBuilder();
+		ids.append("\n<foreach item=\"item\" index=\"index\" collection=\"list\" separator=\",\">");
+		ids.append("#{item}");
+		ids.append("\n</foreach>");
+		return ids.toString();
+	}
+
+	/**
+	 * 启动注入耗时报告，按耗时倒序
+	 */
+	public String getInjectReport() {
+		List<Map.Entry<String, long[]>> entries;
+		synchronized (injectTimings) {
+			entries = new ArrayList<Map.Entry<String, long[]>>(injectTimings.entrySet());
+		}
+		Collections.sort(entries, new Comparator<Map.Entry<String, long[]>>() {
+			public int compare(Map.Entry<String, long[]> a, Map.Entry<String, long[]> b) {
+				return Long.compare(b.getValue()[0], a.getValue()[0]);
+			}
+		});
+		long totalNanos = 0;
+		long totalStatements = 0;
+		StringBuilder report = new StringBuilder();
+		for (Map.Entry<String, long[]> entry : entries) {
+			totalNanos += entry.getValue()[0];
+			totalStatements += entry.getValue()[1];
+			report.append(String.format("%n%10.2f ms %4d statements  %s", entry.getValue()[0] / 1000000.0,
+					entry.getValue()[1], entry.getKey()));
+		}
+		return String.format("Injected %d statements into %d mappers in %.2f ms (lazy=%s)", totalStatements,
+				entries.size(), totalNanos / 1000000.0, lazySqlSource) + report;
+	}
+
+	/**
+	 * 各 Mapper 注入耗时（纳秒）
+	 */
+	public Map<String, Long> getInjectTimings() {
+		Map<String, Long> timings = new LinkedHashMap<String, Long>();
+		synchronized (injectTimings) {
+			for (Map.Entry<String, long[]> entry : injectTimings.entrySet()) {
+				timings.put(entry.getKey(), entry.getValue()[0]);
+			}
+		}
+		return timings;
+	}
+
+	/**
+	 * <p>
+	 * 主键 IN 列表按 2 的幂分桶，ORACLE 桶大小不超过 1000，见 {@link IdListSqlSource}
+	 * </p>
+	 *
+	 * @param sqlSource
+	 *            原始 foreach SqlSource
+	 * @param script
+	 *            ID 列表位置为 {@link IdListSqlSource#IDS} 的 script SQL
+	 * @return SqlSource
+	 */
+	protected SqlSource idListSqlSource(SqlSource sqlSource, String script) {
+		if (!idListBucket) {
+			return sqlSource;
+		}
+		String sql = script.substring("<script>".length(), script.length() - "</script>".length());
+		int maxSize = DBType.ORACLE.equals(dbType) ? IdListSqlSource.ORACLE_MAX_IN_SIZE : Integer.MAX_VALUE;
+		return new IdListSqlSource(configuration, sqlSource, sql, maxSize);
+	}
+
+	/**
+	 * <p>
+	 * EntityWrapper 动态 SQL 按实体空值掩码缓存，避免每次调用执行每个字段的 OGNL 判断
+	 * </p>
+	 *
+	 * @param sqlSource
+	 *            原始动态 SqlSource
+	 * @param table
+	 * @param update
+	 *            是否包含 et 更新字段
+	 * @return SqlSource
+	 */
+	protected SqlSource wrapperSqlSource(SqlSource sqlSource, TableInfo table, boolean update) {
+		if (wrapperSqlCacheSize <= 0) {
+			return sqlSource;
+		}
+		List<TableFieldInfo> fieldList = table.getFieldList();
+		String[] whereProperties = new String[fieldList.size() + 1];
+		boolean[] whereNotEmpty = new boolean[whereProperties.length];
+		whereProperties[0] = table.getKeyProperty();
+		for (int i = 0; i < fieldList.size(); i++) {
+			whereProperties[i + 1] = fieldList.get(i).getProperty();
+			whereNotEmpty[i + 1] = isNotEmptyStrategy(fieldList.get(i));
+		}
+		String[] setProperties = null;
+		boolean[] setNotEmpty = null;
+		if (update) {
+			/* 忽略策略字段总是 SET，不参与掩码 */
+			List<TableFieldInfo> setFields = new ArrayList<TableFieldInfo>();
+			for (TableFieldInfo fieldInfo : fieldList) {
+				if (fieldInfo.getFieldStrategy() != FieldStrategy.IGNORED) {
+					setFields.add(fieldInfo);
+				}
+			}
+			setProperties = new String[setFields.size()];
+			setNotEmpty = new boolean[setFields.size()];
+			for (int i = 0; i < setFields.size(); i++) {
+				setProperties[i] = setFields.get(i).getProperty();
+				setNotEmpty[i] = isNotEmptyStrategy(setFields.get(i));
+			}
+		}
+		return new EntityWrapperSqlSource(configuration, sqlSource, whereProperties, whereNotEmpty, setProperties,
+				setNotEmpty, wrapperSqlCacheSize);
+	}
+
+	/**
+	 * 字段是否为非空字符串判断策略，与 convertIfTag 保持一致
+	 */
+	protected boolean isNotEmptyStrategy(TableFieldInfo fieldInfo) {
+		FieldStrategy fieldStrategy = fieldInfo.getFieldStrategy();
+		if (fieldStrategy == FieldStrategy.IGNORED) {
+			fieldStrategy = GlobalConfiguration.GlobalConfig(configuration).getFieldStrategy();
+		}
+		return fieldStrategy == FieldStrategy.NOT_EMPTY;
+	}
+
 	/**
 	 * <p>
 	 * EntityWrapper方式获取select where
@@ -407,10 +1011,12 @@ public class AutoSqlInjector implements ISqlInjector {
 	 * @return String
 	 */
 	protected String sqlWhereEntityWrapper(TableInfo table) {
-		StringBuilder where = new StringBuilder("\n<where>\n<if test=\"ew!=null\">");
+		StringBuilder where = new StringBuilder("\n<where>");
+		appendLogicDeleteSql(where);
+		where.append("\n<if test=\"ew!=null\">");
 		where.append("\n<if test=\"ew.entity!=null\">");
 		where.append("\n<if test=\"ew.entity.").append(table.getKeyProperty()).append("!=null\">\n");
-		where.append(table.getKeyColumn()).append("=#{ew.entity.").append(table.getKeyProperty()).append("}");
+		where.append(" AND ").append(table.getKeyColumn()).append("=#{ew.entity.").append(table.getKeyProperty()).append("}");
 		where.append("\n</if>");
 		List<TableFieldInfo> fieldList = table.getFieldList();
 		for (TableFieldInfo fieldInfo : fieldList) {
@@ -418,9 +1024,13 @@ public class AutoSqlInjector implements ISqlInjector {
 			where.append(" AND ").append(fieldInfo.getColumn()).append("=#{ew.entity.").append(fieldInfo.getEl()).append("}");
 			where.append(convertIfTag(fieldInfo, true));
 		}
-		where.append("\n</if>\n"+SqlMethod.getIsDeleteSql());
-		where.append("\n<if test=\"ew.sqlSegment!=null\">\n${ew.sqlSegment}\n</if>");
+		where.append("\n</if>");
+		/* 条件在 <where> 内，GROUP BY / ORDER BY 在 <where> 后，没有条件时不会生成 WHERE ORDER BY */
+		where.append("\n<if test=\"ew.sqlSegment!=null\">\n${").append(SQL_SEGMENTS)
+				.append("condition(ew.sqlSegment)}\n</if>");
 		where.append("\n</if>\n</where>");
+		where.append("\n<if test=\"ew!=null and ew.sqlSegment!=null\">\n${").append(SQL_SEGMENTS)
+				.append("tail(ew.sqlSegment)}\n</if>");
 		return where.toString();
 	}
 
@@ -449,6 +1059,124 @@ public class AutoSqlInjector implements ISqlInjector {
 		return where.toString();
 	}
 	
+	/**
+	 * <p>
+	 * 逻辑删除条件：优先使用 @TableLogic 标注的字段，其次按 logicDeleteColumn 约定匹配字段名
+	 * </p>
+	 *
+	 * @param modelClass
+	 * @param table
+	 * @return 如 is_delete='N'，不支持逻辑删除返回 null
+	 */
+	protected String logicDeleteSql(Class<?> modelClass, TableInfo table) {
+		List<TableFieldInfo> fieldList = table.getFieldList();
+		for (TableFieldInfo fieldInfo : fieldList) {
+			Field field = findField(modelClass, fieldInfo.getProperty());
+			TableLogic tableLogic = null == field ? null : field.getAnnotation(TableLogic.class);
+			if (null != tableLogic) {
+				return fieldInfo.getColumn() + "=" + sqlLiteral(tableLogic.value());
+			}
+		}
+		if (null != logicDeleteColumn) {
+			for (TableFieldInfo fieldInfo : fieldList) {
+				String column = fieldInfo.getColumn().replace("`", "").replace("\"", "");
+				if (logicDeleteColumn.equalsIgnoreCase(column)) {
+					return fieldInfo.getColumn() + "=" + sqlLiteral(logicNotDeleteValue);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 按主键语句 WHERE 开头的逻辑删除条件，带 AND 后缀
+	 */
+	protected String logicDeletePrefix() {
+		return null == logicDeleteSql ? "" : logicDeleteSql + " AND ";
+	}
+
+	/**
+	 * &lt;where&gt; 内首个条件，其后的条件均以 AND 开头，由 where 标签去除多余的 AND
+	 */
+	protected void appendLogicDeleteSql(StringBuilder where) {
+		if (null != logicDeleteSql) {
+			where.append("\n").append(logicDeleteSql);
+		}
+	}
+
+	/**
+	 * 乐观锁版本字段，@Version 优先，其次按 versionColumn 约定；版本字段必须是 Integer、Long 或 Short
+	 */
+	protected TableFieldInfo versionField(Class<?> modelClass, TableInfo table) {
+		List<TableFieldInfo> fieldList = table.getFieldList();
+		for (TableFieldInfo fieldInfo : fieldList) {
+			Field field = findField(modelClass, fieldInfo.getProperty());
+			if (null != field && null != field.getAnnotation(Version.class)) {
+				if (!isVersionType(field.getType())) {
+					throw new MybatisPlusException("@Version field must be Integer, Long or Short: " + modelClass.getName()
+							+ "." + field.getName());
+				}
+				return fieldInfo;
+			}
+		}
+		if (null != versionColumn) {
+			for (TableFieldInfo fieldInfo : fieldList) {
+				String column = fieldInfo.getColumn().replace("`", "").replace("\"", "");
+				if (versionColumn.equalsIgnoreCase(column)) {
+					/* 约定字段不是数值类型时不作为版本字段 */
+					Field field = findField(modelClass, fieldInfo.getProperty());
+					return null != field && isVersionType(field.getType()) ? fieldInfo : null;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean isVersionType(Class<?> type) {
+		return type == Integer.class || type == Long.class || type == Short.class || type == int.class
+				|| type == long.class || type == short.class;
+	}
+
+	/**
+	 * 按主键更新的版本条件，实体版本为空时不检查
+	 */
+	protected String versionWhere() {
+		if (null == versionField) {
+			return "";
+		}
+		return String.format("\n<if test=\"%s!=null\"> AND %s=#{%s}</if>", versionField.getProperty(),
+				versionField.getColumn(), versionField.getEl());
+	}
+
+	/**
+	 * 版本字段 SET：实体版本不为空时设为 版本+1，否则在数据库当前值上 +1，使其它持有旧版本的更新失败
+	 */
+	protected String versionSet(String prefix) {
+		String property = null == prefix ? versionField.getProperty() : prefix + versionField.getProperty();
+		String el = null == prefix ? versionField.getEl() : prefix + versionField.getEl();
+		String column = versionField.getColumn();
+		return String.format("\n<choose><when test=\"%s!=null\">%s=#{%s}+1,</when><otherwise>%s=%s+1,</otherwise></choose>",
+				property, column, el, column, column);
+	}
+
+	private static String sqlLiteral(String value) {
+		if (value.matches("-?\\d+")) {
+			return value;
+		}
+		return "'" + value.replace("'", "''") + "'";
+	}
+
+	private static Field findField(Class<?> clazz, String name) {
+		for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+			try {
+				return c.getDeclaredField(name);
+			} catch (NoSuchFieldException e) {
+				// 父类中查找
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * <p>
 	 * SQL 更新 set 语句
@@ -460,17 +1188,41 @@ public class AutoSqlInjector implements ISqlInjector {
 	 * @return
 	 */
 	protected String sqlSet(TableInfo table, String prefix) {
+		return sqlSet(table, prefix, false);
+	}
+
+	/**
+	 * <p>
+	 * SQL 更新 set 语句
+	 * </p>
+	 *
+	 * @param table
+	 * @param prefix
+	 *            前缀
+	 * @param allColumn
+	 *            是否更新全部字段（不判断字段策略）
+	 * @return
+	 */
+	protected String sqlSet(TableInfo table, String prefix, boolean allColumn) {
 		StringBuilder set = new StringBuilder();
 		set.append("<trim prefix=\"SET\" suffixOverrides=\",\">");
 		List<TableFieldInfo> fieldList = table.getFieldList();
 		for (TableFieldInfo fieldInfo : fieldList) {
-			set.append(convertIfTag(true, fieldInfo, prefix, false));
+			if (fieldInfo == versionField) {
+				set.append(versionSet(prefix));
+				continue;
+			}
+			if (!allColumn) {
+				set.append(convertIfTag(true, fieldInfo, prefix, false));
+			}
 			set.append(fieldInfo.getColumn()).append("=#{");
 			if (null != prefix) {
 				set.append(prefix);
 			}
 			set.append(fieldInfo.getEl()).append("},");
-			set.append(convertIfTag(true, fieldInfo, null, true));
+			if (!allColumn) {
+				set.append(convertIfTag(true, fieldInfo, null, true));
+			}
 		}
 		set.append("\n</trim>");
 		return set.toString();
@@ -555,11 +1307,12 @@ public class AutoSqlInjector implements ISqlInjector {
 	protected String sqlWhere(TableInfo table, boolean space) {
 		StringBuilder where = new StringBuilder();
 		where.append("\n<where>");
+		appendLogicDeleteSql(where);
 		if (space) {
 			where.append("\n<if test=\"ew!=null\">");
 		}
 		where.append("\n<if test=\"ew.").append(table.getKeyProperty()).append("!=null\">\n");
-		where.append(table.getKeyColumn()).append("=#{ew.").append(table.getKeyProperty()).append("}");
+		where.append(" AND ").append(table.getKeyColumn()).append("=#{ew.").append(table.getKeyProperty()).append("}");
 		where.append("\n</if>");
 		List<TableFieldInfo> fieldList = table.getFieldList();
 		for (TableFieldInfo fieldInfo : fieldList) {
@@ -570,7 +1323,6 @@ public class AutoSqlInjector implements ISqlInjector {
 		if (space) {
 			where.append("\n</if>");
 		}
-		where.append("\n").append(SqlMethod.getIsDeleteSql());
 		where.append("\n</where>");
 		return where.toString();
 	}
@@ -606,18 +1358,18 @@ public class AutoSqlInjector implements ISqlInjector {
 	protected String sqlWhereByMap() {
 		StringBuilder where = new StringBuilder();
 		where.append("\n<where>");
+		appendLogicDeleteSql(where);
 		where.append("\n<if test=\"cm!=null and !cm.isEmpty\">");
-		where.append("\n<foreach collection=\"cm.keys\" item=\"k\" separator=\"AND\">");
+		where.append("\n<foreach collection=\"cm.keys\" item=\"k\">");
 		where.append("\n<if test=\"cm[k] != null\">");
 		if (DBType.MYSQL.equals(dbType)) {
-			where.append("\n`${k}` = #{cm[${k}]}");
+			where.append("\n AND `${k}` = #{cm[${k}]}");
 		} else {
-			where.append("\n${k} = #{cm[${k}]}");
+			where.append("\n AND ${k} = #{cm[${k}]}");
 		}
 		where.append("\n</if>");
 		where.append("\n</foreach>");
 		where.append("\n</if>");
-		where.append("\n"+SqlMethod.getIsDeleteSql());
 		where.append("\n</where>");
 		return where.toString();
 	}
@@ -725,23 +1477,84 @@ public class AutoSqlInjector implements ISqlInjector {
 				new NoKeyGenerator(), null, null);
 	}
 
+	public void setWrapperSqlCacheSize(int wrapperSqlCacheSize) {
+		this.wrapperSqlCacheSize = wrapperSqlCacheSize;
+	}
+
 	public MappedStatement addMappedStatement(Class<?> mapperClass, String id, SqlSource sqlSource,
 			SqlCommandType sqlCommandType, Class<?> parameterClass, String resultMap, Class<?> resultType,
 			KeyGenerator keyGenerator, String keyProperty, String keyColumn) {
+		return this.addMappedStatement(mapperClass, id, sqlSource, sqlCommandType, parameterClass, resultMap, resultType,
+				keyGenerator, keyProperty, keyColumn, null, null);
+	}
+
+	public MappedStatement addMappedStatement(Class<?> mapperClass, String id, SqlSource sqlSource,
+			SqlCommandType sqlCommandType, Class<?> parameterClass, String resultMap, Class<?> resultType,
+			KeyGenerator keyGenerator, String keyProperty, String keyColumn, Integer fetchSize, ResultSetType resultSetType) {
 		String statementName = mapperClass.getName() + "." + id;
 		if (configuration.hasStatement(statementName)) {
 			System.err.println("{" + statementName
 					+ "} Has been loaded by XML or SqlProvider, ignoring the injection of the SQL.");
 			return null;
 		}
-		/* 缓存逻辑处理 */
+		/* 缓存逻辑处理，流式查询不使用二级缓存 */
 		boolean isSelect = false;
 		if (sqlCommandType == SqlCommandType.SELECT) {
 			isSelect = true;
 		}
-		return builderAssistant.addMappedStatement(id, sqlSource, StatementType.PREPARED, sqlCommandType, null, null, null,
-				parameterClass, resultMap, resultType, null, !isSelect, isSelect, false, keyGenerator, keyProperty, keyColumn,
-				configuration.getDatabaseId(), languageDriver, null);
+		boolean useCache = isSelect && resultSetType == null;
+		injectedStatements++;
+		return builderAssistant.addMappedStatement(id, sqlSource, StatementType.PREPARED, sqlCommandType, fetchSize, null,
+				null, parameterClass, resultMap, resultType, resultSetType, !isSelect, useCache, false, keyGenerator,
+				keyProperty, keyColumn, configuration.getDatabaseId(), languageDriver, null);
+	}
+
+	public void setLogicDeleteColumn(String logicDeleteColumn) {
+		this.logicDeleteColumn = logicDeleteColumn;
+	}
+
+	public void setVersionColumn(String versionColumn) {
+		this.versionColumn = versionColumn;
+	}
+
+	public void setLogicNotDeleteValue(String logicNotDeleteValue) {
+		this.logicNotDeleteValue = logicNotDeleteValue;
+	}
+
+	/**
+	 * 启用注入脚本磁盘缓存，容器关闭时（{@link #destroy()}）写入，也可调用 {@link #saveScriptCache()}
+	 */
+	public void setScriptCacheFile(String scriptCacheFile) {
+		this.scriptCache = new InjectScriptCache(new File(scriptCacheFile));
+	}
+
+	/**
+	 * 写入注入脚本磁盘缓存
+	 */
+	public void saveScriptCache() {
+		if (null != scriptCache) {
+			scriptCache.save();
+		}
+	}
+
+	public void destroy() {
+		saveScriptCache();
+	}
+
+	public void setLazySqlSource(boolean lazySqlSource) {
+		this.lazySqlSource = lazySqlSource;
+	}
+
+	public void setLazyWarmup(boolean lazyWarmup) {
+		this.lazyWarmup = lazyWarmup;
+	}
+
+	public void setStreamFetchSize(int streamFetchSize) {
+		this.streamFetchSize = streamFetchSize;
+	}
+
+	public void setIdListBucket(boolean idListBucket) {
+		this.idListBucket = idListBucket;
 	}
 
 }
@@ -1,5 +1,8 @@
 package org.apache.playframework.mybatisplus.mapper;
 
+import org.apache.playframework.mybatisplus.toolkit.ProjectionColumns;
+
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
 import com.baomidou.mybatisplus.mapper.Wrapper;
 import com.baomidou.mybatisplus.toolkit.StringUtils;
 
@@ -11,10 +14,19 @@ public class EntityWrapper<T> extends Wrapper<T>  {
 	 */
 	protected T entity = null;
 
+	/**
+	 * 实体类，投影查询未设置实体时使用
+	 */
+	protected Class<T> entityClass = null;
+
 	public EntityWrapper() {
 		/* 注意，传入查询参数 */
 	}
 
+	public EntityWrapper(Class<T> entityClass) {
+		this.entityClass = entityClass;
+	}
+
 	public EntityWrapper(T entity) {
 		this.entity = entity;
 	}
@@ -32,6 +44,46 @@ public class EntityWrapper<T> extends Wrapper<T>  {
 		this.entity = entity;
 	}
 
+	public Class<T> getEntityClass() {
+		return entityClass;
+	}
+
+	public void setEntityClass(Class<T> entityClass) {
+		this.entityClass = entityClass;
+	}
+
+	/**
+	 * <p>
+	 * 只查询指定属性对应的字段，按 TableInfo 解析列名
+	 * </p>
+	 * @param properties 实体属性名
+	 */
+	public EntityWrapper<T> selectProperties(String... properties) {
+		this.sqlSelect = ProjectionColumns.sqlSelect(currentEntityClass(), properties);
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * 只查询 DTO 属性对应的字段，结果按属性名映射，配合 BaseService 投影查询直接返回 DTO
+	 * </p>
+	 * @param projectionClass DTO 类
+	 */
+	public EntityWrapper<T> selectProjection(Class<?> projectionClass) {
+		this.sqlSelect = ProjectionColumns.sqlSelect(currentEntityClass(), projectionClass);
+		return this;
+	}
+
+	private Class<?> currentEntityClass() {
+		if (null != entityClass) {
+			return entityClass;
+		}
+		if (null != entity) {
+			return entity.getClass();
+		}
+		throw new MybatisPlusException("Error: EntityWrapper projection requires entity or entityClass.");
+	}
+
 	
 	@Override
 	public String getSqlSegment() {
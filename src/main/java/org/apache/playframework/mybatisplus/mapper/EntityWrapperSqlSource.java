@@ -0,0 +1,413 @@
+package org.apache.playframework.mybatisplus.mapper;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.session.Configuration;
+import org.apache.playframework.mybatisplus.toolkit.SqlSegments;
+
+/**
+ * <p>
+ * EntityWrapper 动态 SQL 缓存
+ * </p>
+ * <p>
+ * AutoSqlInjector 生成的 EntityWrapper 脚本每个字段一个 &lt;if test="ew.entity.xx!=null"&gt;，每次调用都要执行 OGNL。
+ * 脚本生成的 SQL 只取决于实体字段是否为空、ew.sqlSegment 与 ew.sqlSelect。
+ * ew.sqlSegment 带字面量，每次调用都可能不同，这里用占位片段生成 SQL 并在占位处切分，
+ * 按 (空值掩码, sqlSegment 条件部分开头的 AND / OR, 是否有 GROUP BY / ORDER BY 部分, sqlSelect) 缓存 SQL 模板与参数映射，
+ * 命中时把本次 sqlSegment 的条件部分与 GROUP BY / ORDER BY 部分（见 {@link SqlSegments}）分别拼接到占位处，直接构建 BoundSql。
+ * 条件占位片段保留原条件开头的 AND / OR，&lt;where&gt; 去除前缀的结果与原片段一致。
+ * 缓存按最近使用淘汰，最多 maxSize 条。
+ * </p>
+ * <p>
+ * NOT_EMPTY 字段与 OGNL 的 x!='' 一致：空字符串与数值 0 视为空；其它非字符串类型的值交给原始 SqlSource 判断。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class EntityWrapperSqlSource implements SqlSource {
+
+	private final Configuration configuration;
+
+	private final SqlSource delegate;
+
+	/* ew.entity 条件字段 */
+	private final Probe whereProbe;
+
+	/* et 更新字段，非更新语句为 null */
+	private final Probe setProbe;
+
+	private final int maxSize;
+
+	/* 最近使用顺序的 LRU 缓存，访问需同步 */
+	private final LinkedHashMap<Key, Entry> cache;
+
+	/* 生成 SQL 模板时代替 sqlSegment 条件部分的占位片段 */
+	private static final String SEGMENT = "/*__ew_sql_segment__*/";
+
+	/* 生成 SQL 模板时代替 sqlSegment GROUP BY / ORDER BY 部分的占位片段 */
+	private static final String TAIL = "ORDER BY /*__ew_sql_tail__*/";
+
+	/* 条件部分开头会被 <where> 去除的 AND / OR */
+	private static final Pattern SEGMENT_PREFIX = Pattern.compile("^\\s*(AND|OR)\\s", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * @param configuration
+	 * @param delegate
+	 *            原始动态 SqlSource
+	 * @param whereProperties
+	 *            ew.entity 条件字段属性
+	 * @param whereNotEmpty
+	 *            对应字段是否为 NOT_EMPTY 策略
+	 * @param setProperties
+	 *            et 更新字段属性，非更新语句为 null
+	 * @param setNotEmpty
+	 *            对应字段是否为 NOT_EMPTY 策略
+	 * @param maxSize
+	 *            最大缓存条数
+	 */
+	public EntityWrapperSqlSource(Configuration configuration, SqlSource delegate, String[] whereProperties,
+			boolean[] whereNotEmpty, String[] setProperties, boolean[] setNotEmpty, int maxSize) {
+		this.configuration = configuration;
+		this.delegate = delegate;
+		this.whereProbe = new Probe(whereProperties, whereNotEmpty);
+		this.setProbe = setProperties == null ? null : new Probe(setProperties, setNotEmpty);
+		this.maxSize = maxSize;
+		this.cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > EntityWrapperSqlSource.this.maxSize;
+			}
+		};
+	}
+
+	@Override
+	public BoundSql getBoundSql(Object parameterObject) {
+		Key key = key(parameterObject);
+		if (key == null) {
+			return delegate.getBoundSql(parameterObject);
+		}
+		Entry entry;
+		synchronized (cache) {
+			entry = cache.get(key);
+		}
+		if (entry == null) {
+			entry = entry((Map<?, ?>) parameterObject, key);
+			if (entry == null) {
+				return delegate.getBoundSql(parameterObject);
+			}
+			synchronized (cache) {
+				cache.put(key, entry);
+			}
+		}
+		String sql = entry.sql;
+		if (entry.segmentIndex >= 0 || entry.tailIndex >= 0) {
+			String sqlSegment = ((EntityWrapper<?>) ((Map<?, ?>) parameterObject).get("ew")).getSqlSegment();
+			int tailIndex = SqlSegments.tailIndex(sqlSegment);
+			StringBuilder sb = new StringBuilder(sql.length() + sqlSegment.length());
+			int from = 0;
+			if (entry.segmentIndex >= 0) {
+				sb.append(sql, 0, entry.segmentIndex);
+				sb.append(sqlSegment, key.segmentPrefix.length(), tailIndex < 0 ? sqlSegment.length() : tailIndex);
+				from = entry.segmentIndex;
+			}
+			if (entry.tailIndex >= 0) {
+				sb.append(sql, from, entry.tailIndex).append(sqlSegment, tailIndex, sqlSegment.length());
+				from = entry.tailIndex;
+			}
+			sql = sb.append(sql, from, sql.length()).toString();
+		}
+		BoundSql boundSql = new BoundSql(configuration, sql, entry.parameterMappings, parameterObject);
+		boundSql.setAdditionalParameter(DynamicContext.PARAMETER_OBJECT_KEY, parameterObject);
+		boundSql.setAdditionalParameter(DynamicContext.DATABASE_ID_KEY, configuration.getDatabaseId());
+		return boundSql;
+	}
+
+	/**
+	 * 生成 SQL 模板：sqlSegment 替换为占位片段后执行原始 SqlSource，记录占位位置；占位不是恰好出现一次时返回 null
+	 */
+	private Entry entry(Map<?, ?> param, Key key) {
+		if (key.segmentPrefix == null && !key.tail) {
+			BoundSql boundSql = delegate.getBoundSql(param);
+			return new Entry(boundSql.getSql(), -1, -1, boundSql.getParameterMappings());
+		}
+		String sqlSegment = (key.segmentPrefix == null ? "" : key.segmentPrefix + SEGMENT) + (key.tail ? " " + TAIL : "");
+		Map<Object, Object> templateParam = new HashMap<Object, Object>(param);
+		templateParam.put("ew", new SegmentWrapper((EntityWrapper<?>) param.get("ew"), sqlSegment));
+		BoundSql boundSql = delegate.getBoundSql(templateParam);
+		String sql = boundSql.getSql();
+		int segmentIndex = -1;
+		if (key.segmentPrefix != null) {
+			segmentIndex = indexOnce(sql, SEGMENT);
+			if (segmentIndex < 0) {
+				return null;
+			}
+			sql = sql.substring(0, segmentIndex) + sql.substring(segmentIndex + SEGMENT.length());
+		}
+		int tailIndex = -1;
+		if (key.tail) {
+			tailIndex = indexOnce(sql, TAIL);
+			if (tailIndex < 0 || tailIndex < segmentIndex) {
+				return null;
+			}
+			sql = sql.substring(0, tailIndex) + sql.substring(tailIndex + TAIL.length());
+		}
+		return new Entry(sql, segmentIndex, tailIndex, boundSql.getParameterMappings());
+	}
+
+	private static int indexOnce(String sql, String placeholder) {
+		int index = sql.indexOf(placeholder);
+		return index < 0 || sql.indexOf(placeholder, index + 1) >= 0 ? -1 : index;
+	}
+
+	/**
+	 * 计算缓存 KEY，无法识别的参数返回 null 走原始 SqlSource
+	 */
+	private Key key(Object parameterObject) {
+		if (!(parameterObject instanceof Map)) {
+			return null;
+		}
+		Map<?, ?> param = (Map<?, ?>) parameterObject;
+		Object ew = param.containsKey("ew") ? param.get("ew") : null;
+		if (ew != null && !(ew instanceof EntityWrapper)) {
+			return null;
+		}
+		long[] mask = new long[whereProbe.words + (setProbe == null ? 0 : setProbe.words) + 1];
+		String segmentPrefix = null;
+		boolean tail = false;
+		String sqlSelect = null;
+		if (ew != null) {
+			EntityWrapper<?> wrapper = (EntityWrapper<?>) ew;
+			Object entity = wrapper.getEntity();
+			mask[0] = 1L;
+			if (entity != null) {
+				mask[0] |= 2L;
+				if (!whereProbe.fill(entity, mask, 1)) {
+					return null;
+				}
+			}
+			String sqlSegment = wrapper.getSqlSegment();
+			if (sqlSegment != null && sqlSegment.contains("#{")) {
+				/* 片段内的 #{} 会被解析为参数，不能直接拼接 */
+				return null;
+			}
+			if (sqlSegment != null) {
+				int tailIndex = SqlSegments.tailIndex(sqlSegment);
+				String condition = tailIndex < 0 ? sqlSegment : sqlSegment.substring(0, tailIndex);
+				if (condition.trim().length() > 0) {
+					Matcher matcher = SEGMENT_PREFIX.matcher(condition);
+					segmentPrefix = matcher.find() ? matcher.group() : "";
+				}
+				tail = tailIndex >= 0;
+			}
+			sqlSelect = wrapper.getSqlSelect();
+		}
+		if (setProbe != null) {
+			Object et = param.containsKey("et") ? param.get("et") : null;
+			if (et != null) {
+				mask[0] |= 4L;
+				if (!setProbe.fill(et, mask, 1 + whereProbe.words)) {
+					return null;
+				}
+			}
+		}
+		return new Key(mask, segmentPrefix, tail, sqlSelect);
+	}
+
+	/**
+	 * 实体字段取值，getter 按实体类缓存
+	 */
+	private class Probe {
+
+		private final String[] properties;
+
+		private final boolean[] notEmpty;
+
+		private final int words;
+
+		private volatile Getters getters;
+
+		Probe(String[] properties, boolean[] notEmpty) {
+			this.properties = properties;
+			this.notEmpty = notEmpty;
+			this.words = (properties.length + 63) / 64;
+		}
+
+		boolean fill(Object entity, long[] mask, int offset) {
+			Invoker[] getters = invokers(entity.getClass());
+			if (getters == null) {
+				return false;
+			}
+			try {
+				for (int i = 0; i < getters.length; i++) {
+					Object value = getters[i].invoke(entity, null);
+					if (value == null) {
+						continue;
+					}
+					if (notEmpty[i]) {
+						/* OGNL x!='' 把 '' 转为数值比较，数值 0 同样视为空 */
+						if (value instanceof CharSequence) {
+							if (((CharSequence) value).length() == 0) {
+								continue;
+							}
+						} else if (value instanceof BigDecimal) {
+							if (((BigDecimal) value).signum() == 0) {
+								continue;
+							}
+						} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+								|| value instanceof Byte) {
+							if (((Number) value).longValue() == 0L) {
+								continue;
+							}
+						} else if (value instanceof Double || value instanceof Float) {
+							if (((Number) value).doubleValue() == 0D) {
+								continue;
+							}
+						} else {
+							return false;
+						}
+					}
+					mask[offset + (i >>> 6)] |= 1L << (i & 63);
+				}
+			} catch (Exception e) {
+				return false;
+			}
+			return true;
+		}
+
+		private Invoker[] invokers(Class<?> entityClass) {
+			Getters cached = this.getters;
+			if (cached != null && cached.type == entityClass) {
+				return cached.invokers;
+			}
+			Reflector reflector = configuration.getReflectorFactory().findForClass(entityClass);
+			Invoker[] invokers = new Invoker[properties.length];
+			for (int i = 0; i < properties.length; i++) {
+				if (!reflector.hasGetter(properties[i])) {
+					return null;
+				}
+				invokers[i] = reflector.getGetInvoker(properties[i]);
+			}
+			this.getters = new Getters(entityClass, invokers);
+			return invokers;
+		}
+	}
+
+	private static class Getters {
+
+		private final Class<?> type;
+
+		private final Invoker[] invokers;
+
+		Getters(Class<?> type, Invoker[] invokers) {
+			this.type = type;
+			this.invokers = invokers;
+		}
+	}
+
+	/**
+	 * 生成 SQL 模板用的 EntityWrapper，sqlSegment 为占位片段，其它取自原 wrapper
+	 */
+	@SuppressWarnings({ "serial", "rawtypes", "unchecked" })
+	private static class SegmentWrapper extends EntityWrapper {
+
+		private final String sqlSegment;
+
+		SegmentWrapper(EntityWrapper<?> wrapper, String sqlSegment) {
+			this.entity = wrapper.getEntity();
+			this.entityClass = wrapper.getEntityClass();
+			this.sqlSelect = wrapper.getSqlSelect();
+			this.sqlSegment = sqlSegment;
+		}
+
+		@Override
+		public String getSqlSegment() {
+			return sqlSegment;
+		}
+	}
+
+	private static class Key {
+
+		private final long[] mask;
+
+		/* sqlSegment 条件部分开头的 AND / OR，没有条件部分时为 null；片段本身不参与 KEY */
+		private final String segmentPrefix;
+
+		/* sqlSegment 是否有 GROUP BY / ORDER BY 部分 */
+		private final boolean tail;
+
+		private final String sqlSelect;
+
+		private final int hash;
+
+		Key(long[] mask, String segmentPrefix, boolean tail, String sqlSelect) {
+			this.mask = mask;
+			this.segmentPrefix = segmentPrefix;
+			this.tail = tail;
+			this.sqlSelect = sqlSelect;
+			int h = Arrays.hashCode(mask);
+			h = 31 * h + (segmentPrefix == null ? 0 : segmentPrefix.hashCode());
+			h = 31 * h + (tail ? 1 : 0);
+			h = 31 * h + (sqlSelect == null ? 0 : sqlSelect.hashCode());
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && Arrays.equals(mask, other.mask) && tail == other.tail
+					&& equals(segmentPrefix, other.segmentPrefix) && equals(sqlSelect, other.sqlSelect);
+		}
+
+		private static boolean equals(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
+
+	private static class Entry {
+
+		/* 不含 sqlSegment 的 SQL */
+		private final String sql;
+
+		/* sqlSegment 条件部分插入位置，没有时为 -1 */
+		private final int segmentIndex;
+
+		/* sqlSegment GROUP BY / ORDER BY 部分插入位置，没有时为 -1 */
+		private final int tailIndex;
+
+		private final List<ParameterMapping> parameterMappings;
+
+		Entry(String sql, int segmentIndex, int tailIndex, List<ParameterMapping> parameterMappings) {
+			this.sql = sql;
+			this.segmentIndex = segmentIndex;
+			this.tailIndex = tailIndex;
+			this.parameterMappings = parameterMappings;
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.apache.playframework.mybatisplus.mapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * <p>
+ * 主键 IN 列表分桶
+ * </p>
+ * <p>
+ * selectBatchIds / deleteBatchIds 的 IN (&lt;foreach&gt;) 每个列表长度生成不同的 SQL，驱动与数据库的预编译语句缓存无法复用。
+ * 这里把 ID 个数补齐到 2 的幂（重复最后一个 ID，IN 条件结果不变），每个桶的 SQL 文本与参数映射只生成一次，
+ * 不同长度的列表最多只有 log2(n) 种 SQL。
+ * </p>
+ * <p>
+ * 桶大小不超过 maxSize：ORACLE 的 IN 列表最多 1000 项（ORA-01795），补齐到 1024 会出错，
+ * 此时 ID 数超过 512 的桶固定为 1000，超过 1000 的列表交给原始 SqlSource（调用方应先分块）。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class IdListSqlSource implements SqlSource {
+
+	/* SQL 模板中 ID 占位符位置 */
+	public static final String IDS = "#IDS#";
+
+	/* ORACLE IN 列表最大项数 */
+	public static final int ORACLE_MAX_IN_SIZE = 1000;
+
+	private static final String PARAMETER_PREFIX = "__id_";
+
+	private final Configuration configuration;
+
+	private final SqlSource delegate;
+
+	private final String prefix;
+
+	private final String suffix;
+
+	/* 最大桶大小 */
+	private final int maxSize;
+
+	/* 桶大小 - SQL 与参数映射 */
+	private final Map<Integer, Entry> buckets = new ConcurrentHashMap<Integer, Entry>();
+
+	/**
+	 * @param configuration
+	 * @param delegate
+	 *            原始 foreach SqlSource，参数无法识别时使用
+	 * @param sql
+	 *            不含 script 标签的 SQL，ID 列表位置为 {@link #IDS}
+	 */
+	public IdListSqlSource(Configuration configuration, SqlSource delegate, String sql) {
+		this(configuration, delegate, sql, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param configuration
+	 * @param delegate
+	 *            原始 foreach SqlSource，参数无法识别或 ID 数超过 maxSize 时使用
+	 * @param sql
+	 *            不含 script 标签的 SQL，ID 列表位置为 {@link #IDS}
+	 * @param maxSize
+	 *            最大桶大小，ORACLE 为 {@link #ORACLE_MAX_IN_SIZE}
+	 */
+	public IdListSqlSource(Configuration configuration, SqlSource delegate, String sql, int maxSize) {
+		int index = sql.indexOf(IDS);
+		this.maxSize = maxSize;
+		this.configuration = configuration;
+		this.delegate = delegate;
+		this.prefix = sql.substring(0, index);
+		this.suffix = sql.substring(index + IDS.length());
+	}
+
+	@Override
+	public BoundSql getBoundSql(Object parameterObject) {
+		List<?> ids = ids(parameterObject);
+		if (ids == null || ids.isEmpty() || ids.size() > maxSize) {
+			return delegate.getBoundSql(parameterObject);
+		}
+		int size = Math.min(bucket(ids.size()), maxSize);
+		Entry entry = buckets.get(size);
+		if (entry == null) {
+			entry = new Entry(size);
+			buckets.put(size, entry);
+		}
+		BoundSql boundSql = new BoundSql(configuration, entry.sql, entry.parameterMappings, parameterObject);
+		boundSql.setAdditionalParameter(DynamicContext.PARAMETER_OBJECT_KEY, parameterObject);
+		boundSql.setAdditionalParameter(DynamicContext.DATABASE_ID_KEY, configuration.getDatabaseId());
+		Object last = ids.get(ids.size() - 1);
+		for (int i = 0; i < size; i++) {
+			boundSql.setAdditionalParameter(PARAMETER_PREFIX + i, i < ids.size() ? ids.get(i) : last);
+		}
+		return boundSql;
+	}
+
+	/**
+	 * 不小于 size 的 2 的幂
+	 */
+	public static int bucket(int size) {
+		return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * 参数中的 ID 列表，MyBatis 把 List 参数包装为包含 list 的 Map
+	 */
+	private static List<?> ids(Object parameterObject) {
+		Object ids = parameterObject;
+		if (parameterObject instanceof Map) {
+			Map<?, ?> param = (Map<?, ?>) parameterObject;
+			ids = param.containsKey("list") ? param.get("list") : null;
+		}
+		if (ids instanceof List) {
+			return (List<?>) ids;
+		}
+		if (ids instanceof Collection) {
+			return new ArrayList<Object>((Collection<?>) ids);
+		}
+		return null;
+	}
+
+	private class Entry {
+
+		private final String sql;
+
+		private final List<ParameterMapping> parameterMappings;
+
+		Entry(int size) {
+			StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + size * 2);
+			List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(size);
+			sql.append(prefix);
+			for (int i = 0; i < size; i++) {
+				if (i > 0) {
+					sql.append(',');
+				}
+				sql.append('?');
+				parameterMappings.add(new ParameterMapping.Builder(configuration, PARAMETER_PREFIX + i, Object.class).build());
+			}
+			sql.append(suffix);
+			this.sql = sql.toString();
+			this.parameterMappings = Collections.unmodifiableList(parameterMappings);
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package org.apache.playframework.mybatisplus.mapper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * <p>
+ * 注入脚本磁盘缓存
+ * </p>
+ * <p>
+ * 按 Mapper#注入方法保存 AutoSqlInjector 生成的 &lt;script&gt; 文本及其摘要。摘要由实体元数据、注入配置、
+ * SqlMethod 模板与 MyBatis 版本计算，重启时摘要一致直接使用缓存的脚本，不再拼接；摘要不一致时重新生成并覆盖。
+ * </p>
+ * <p>
+ * 文件为 Properties 格式，值为 摘要:脚本。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class InjectScriptCache {
+
+	private static final Log logger = LogFactory.getLog(InjectScriptCache.class);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final File file;
+
+	/* Mapper#方法 - 摘要:脚本 */
+	private final Map<String, String> scripts = new ConcurrentHashMap<String, String>();
+
+	private volatile boolean dirty;
+
+	public InjectScriptCache(File file) {
+		this.file = file;
+		load();
+	}
+
+	/**
+	 * 摘要一致时返回缓存的脚本，否则返回 null
+	 */
+	public String get(String key, String hash) {
+		String value = scripts.get(key);
+		if (value != null && value.length() > hash.length() && value.startsWith(hash)
+				&& value.charAt(hash.length()) == ':') {
+			return value.substring(hash.length() + 1);
+		}
+		return null;
+	}
+
+	/**
+	 * 记录生成的脚本，覆盖摘要不一致的旧脚本
+	 */
+	public void put(String key, String hash, String script) {
+		scripts.put(key, hash + ":" + script);
+		dirty = true;
+	}
+
+	/**
+	 * 写入磁盘，没有变化时不写
+	 */
+	public synchronized void save() {
+		if (!dirty) {
+			return;
+		}
+		Properties properties = new Properties();
+		properties.putAll(scripts);
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		File temp = new File(file.getPath() + ".tmp");
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(temp);
+			properties.store(out, "AutoSqlInjector script cache");
+			out.close();
+			out = null;
+			if (!temp.renameTo(file)) {
+				file.delete();
+				if (!temp.renameTo(file)) {
+					logger.warn("Can not write inject script cache " + file);
+					return;
+				}
+			}
+			dirty = false;
+		} catch (IOException e) {
+			logger.warn("Can not write inject script cache " + file + ": " + e.getMessage());
+		} finally {
+			close(out);
+		}
+	}
+
+	private void load() {
+		if (!file.isFile()) {
+			return;
+		}
+		Properties properties = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			properties.load(in);
+		} catch (IOException e) {
+			/* 损坏的缓存视为空 */
+			logger.warn("Can not read inject script cache " + file + ": " + e.getMessage());
+			return;
+		} finally {
+			close(in);
+		}
+		for (String key : properties.stringPropertyNames()) {
+			scripts.put(key, properties.getProperty(key));
+		}
+	}
+
+	/**
+	 * SHA-1 十六进制摘要
+	 */
+	public static String digest(String text) {
+		try {
+			byte[] bytes = MessageDigest.getInstance("SHA-1").digest(text.getBytes(UTF_8));
+			StringBuilder hex = new StringBuilder(bytes.length * 2);
+			for (byte b : bytes) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+}
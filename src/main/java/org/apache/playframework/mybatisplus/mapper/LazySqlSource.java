@@ -0,0 +1,65 @@
+package org.apache.playframework.mybatisplus.mapper;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * <p>
+ * 延迟解析的 SqlSource
+ * </p>
+ * <p>
+ * 注入时只保存 &lt;script&gt; 文本，第一次执行（或后台预热）时才由 LanguageDriver 解析 XML，
+ * 避免启动时为每个 Mapper 串行解析全部注入语句。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class LazySqlSource implements SqlSource {
+
+	private final Configuration configuration;
+
+	private final LanguageDriver languageDriver;
+
+	private final String script;
+
+	private final Class<?> parameterType;
+
+	private volatile SqlSource delegate;
+
+	public LazySqlSource(Configuration configuration, LanguageDriver languageDriver, String script,
+			Class<?> parameterType) {
+		this.configuration = configuration;
+		this.languageDriver = languageDriver;
+		this.script = script;
+		this.parameterType = parameterType;
+	}
+
+	@Override
+	public BoundSql getBoundSql(Object parameterObject) {
+		return materialize().getBoundSql(parameterObject);
+	}
+
+	/**
+	 * 解析脚本，只解析一次
+	 */
+	public SqlSource materialize() {
+		SqlSource sqlSource = delegate;
+		if (sqlSource == null) {
+			synchronized (this) {
+				sqlSource = delegate;
+				if (sqlSource == null) {
+					sqlSource = languageDriver.createSqlSource(configuration, script, parameterType);
+					delegate = sqlSource;
+				}
+			}
+		}
+		return sqlSource;
+	}
+
+	public boolean isMaterialized() {
+		return delegate != null;
+	}
+
+}
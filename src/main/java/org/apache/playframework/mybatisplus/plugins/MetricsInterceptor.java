@@ -0,0 +1,256 @@
+package org.apache.playframework.mybatisplus.plugins;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.playframework.log.Logger;
+import org.apache.playframework.log.LoggerFactory;
+import org.apache.playframework.mybatisplus.plugins.metrics.MetricsReporter;
+import org.apache.playframework.mybatisplus.plugins.metrics.StatementMetrics;
+import org.apache.playframework.util.SharedExecutors;
+
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+import com.baomidou.mybatisplus.toolkit.StringUtils;
+
+/**
+ * <p>
+ * SQL 执行指标拦截器
+ * </p>
+ * <p>
+ * 按 MappedStatement ID 记录执行耗时、返回或影响行数、异常次数，分页 COUNT 查询（ID 以 _COUNT 结尾）记入原语句的 COUNT 耗时，
+ * 进入 Executor 到第一次 StatementHandler.prepare 的耗时记为 prepareWait（含获取连接，插件无法单独拦截 getConnection，
+ * 连接池等待请看连接池自身的指标）。直方图无锁，每次调用不分配对象。
+ * 每 reportIntervalSeconds 秒切换统计周期（使用 SharedExecutors 的定时线程），把上一周期的指标交给 MetricsReporter。
+ * </p>
+ * <p>
+ * 必须注册在 PaginationInterceptor 之前（内层），PaginationInterceptor 第一次执行时校验；开启 PaginationInterceptor 的
+ * countStatement 后 COUNT 查询才会经过本拦截器；数据查询耗时不含 COUNT。
+ * </p>
+ *
+ * @author willenfoo
+ */
+@Intercepts({
+		@Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class, RowBounds.class,
+				ResultHandler.class }),
+		@Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+		@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }) })
+public class MetricsInterceptor implements Interceptor {
+
+	private static final Logger logger = LoggerFactory.getLogger(MetricsInterceptor.class);
+
+	/* PaginationInterceptor COUNT 语句 ID 后缀 */
+	private static final String COUNT_SUFFIX = "_COUNT";
+
+	/* 当前线程正在执行的语句 */
+	private static final ThreadLocal<Current> CURRENT = new ThreadLocal<Current>() {
+		@Override
+		protected Current initialValue() {
+			return new Current();
+		}
+	};
+
+	/* 当前统计周期：语句 ID - 指标 */
+	private volatile ConcurrentHashMap<String, StatementMetrics> metrics = new ConcurrentHashMap<String, StatementMetrics>();
+
+	private final List<MetricsReporter> reporters = new CopyOnWriteArrayList<MetricsReporter>();
+
+	/* 统计周期秒数，0 不定时输出 */
+	private int reportIntervalSeconds = 60;
+
+	/* 定时输出任务 */
+	private ScheduledFuture<?> reportTask;
+
+	public Object intercept(Invocation invocation) throws Throwable {
+		if (invocation.getTarget() instanceof StatementHandler) {
+			Current current = CURRENT.get();
+			if (current.metrics != null && !current.prepared) {
+				current.prepared = true;
+				current.metrics.recordPrepareWait((System.nanoTime() - current.start) / 1000);
+			}
+			return invocation.proceed();
+		}
+		String id = ((MappedStatement) invocation.getArgs()[0]).getId();
+		boolean count = id.endsWith(COUNT_SUFFIX);
+		StatementMetrics statementMetrics = getStatementMetrics(
+				count ? id.substring(0, id.length() - COUNT_SUFFIX.length()) : id);
+		Current current = CURRENT.get();
+		/* 嵌套执行时恢复外层状态 */
+		long outerStart = current.start;
+		StatementMetrics outerMetrics = current.metrics;
+		boolean outerPrepared = current.prepared;
+		long start = System.nanoTime();
+		current.start = start;
+		current.metrics = statementMetrics;
+		current.prepared = false;
+		try {
+			Object result = invocation.proceed();
+			long micros = (System.nanoTime() - start) / 1000;
+			if (count) {
+				statementMetrics.recordCount(micros);
+			} else {
+				statementMetrics.recordLatency(micros, rows(result));
+			}
+			return result;
+		} catch (Throwable t) {
+			statementMetrics.recordError();
+			throw t;
+		} finally {
+			current.start = outerStart;
+			current.metrics = outerMetrics;
+			current.prepared = outerPrepared;
+		}
+	}
+
+	private StatementMetrics getStatementMetrics(String id) {
+		ConcurrentHashMap<String, StatementMetrics> map = metrics;
+		StatementMetrics statementMetrics = map.get(id);
+		if (statementMetrics == null) {
+			statementMetrics = new StatementMetrics(id);
+			StatementMetrics existing = map.putIfAbsent(id, statementMetrics);
+			if (existing != null) {
+				statementMetrics = existing;
+			}
+		}
+		return statementMetrics;
+	}
+
+	private static int rows(Object result) {
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		if (result instanceof Integer) {
+			return (Integer) result;
+		}
+		return 0;
+	}
+
+	/**
+	 * 结束当前统计周期并输出给所有 MetricsReporter
+	 *
+	 * @return 上一周期的指标
+	 */
+	public Collection<StatementMetrics> report() {
+		Map<String, StatementMetrics> previous = metrics;
+		metrics = new ConcurrentHashMap<String, StatementMetrics>();
+		Collection<StatementMetrics> values = Collections.unmodifiableCollection(previous.values());
+		for (MetricsReporter reporter : reporters) {
+			try {
+				reporter.report(values);
+			} catch (RuntimeException e) {
+				logger.error("MetricsReporter " + reporter.getClass().getName() + " failed", e);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 当前统计周期的指标
+	 */
+	public Map<String, StatementMetrics> getMetrics() {
+		return Collections.unmodifiableMap(metrics);
+	}
+
+	private synchronized void schedule() {
+		/* SharedExecutors 关闭后任务已结束，再次设置时重新调度 */
+		if ((reportTask != null && !reportTask.isDone()) || reportIntervalSeconds <= 0 || reporters.isEmpty()) {
+			return;
+		}
+		reportTask = SharedExecutors.scheduler().scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				report();
+			}
+		}, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 停止定时输出
+	 */
+	public synchronized void shutdown() {
+		if (reportTask != null) {
+			reportTask.cancel(false);
+			reportTask = null;
+		}
+	}
+
+	public Object plugin(Object target) {
+		if (target instanceof Executor || target instanceof StatementHandler) {
+			return Plugin.wrap(target, this);
+		}
+		return target;
+	}
+
+	/**
+	 * reporters 格式：实现类,实现类
+	 */
+	public void setProperties(Properties prop) {
+		String reporters = prop.getProperty("reporters");
+		String reportIntervalSeconds = prop.getProperty("reportIntervalSeconds");
+		if (StringUtils.isNotEmpty(reportIntervalSeconds)) {
+			this.reportIntervalSeconds = Integer.parseInt(reportIntervalSeconds);
+		}
+		if (StringUtils.isNotEmpty(reporters)) {
+			List<MetricsReporter> list = new ArrayList<MetricsReporter>();
+			for (String className : reporters.split(",")) {
+				list.add(newReporter(className.trim()));
+			}
+			setReporters(list);
+		}
+	}
+
+	private MetricsReporter newReporter(String className) {
+		try {
+			Class<?> clazz = Class.forName(className);
+			if (MetricsReporter.class.isAssignableFrom(clazz)) {
+				return (MetricsReporter) clazz.newInstance();
+			}
+		} catch (Exception e) {
+			throw new MybatisPlusException("MetricsReporter :" + className + " can not be instantiated");
+		}
+		throw new MybatisPlusException("Class :" + className + " is not a MetricsReporter");
+	}
+
+	public void setReporters(List<MetricsReporter> reporters) {
+		this.reporters.clear();
+		this.reporters.addAll(reporters);
+		schedule();
+	}
+
+	public void setReportIntervalSeconds(int reportIntervalSeconds) {
+		this.reportIntervalSeconds = reportIntervalSeconds;
+		shutdown();
+		schedule();
+	}
+
+	/**
+	 * 线程当前语句，复用同一实例避免每次调用分配对象
+	 */
+	private static class Current {
+
+		private long start;
+
+		private StatementMetrics metrics;
+
+		/* 已记录 prepareWait */
+		private boolean prepared;
+	}
+
+}
@@ -17,44 +17,85 @@ package org.apache.playframework.mybatisplus.plugins;
 
 import com.baomidou.mybatisplus.MybatisDefaultParameterHandler;
 import com.baomidou.mybatisplus.entity.CountOptimize;
+import com.baomidou.mybatisplus.entity.TableInfo;
 import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+import com.baomidou.mybatisplus.mapper.BaseMapper;
 import com.baomidou.mybatisplus.plugins.pagination.DialectFactory;
 import com.baomidou.mybatisplus.plugins.pagination.IDialect;
 import com.baomidou.mybatisplus.plugins.pagination.Pagination;
 import com.baomidou.mybatisplus.toolkit.IOUtils;
 import com.baomidou.mybatisplus.toolkit.SqlUtils;
 import com.baomidou.mybatisplus.toolkit.StringUtils;
+import com.baomidou.mybatisplus.toolkit.TableInfoHelper;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
-import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.Intercepts;
 import org.apache.ibatis.plugin.Invocation;
 import org.apache.ibatis.plugin.Plugin;
 import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.apache.playframework.mybatisplus.plugins.pagination.CountCache;
+import org.apache.playframework.mybatisplus.plugins.pagination.CountStrategy;
+import org.apache.playframework.mybatisplus.plugins.pagination.EstimatePage;
+import org.apache.playframework.mybatisplus.plugins.pagination.KeysetPagination;
+import org.apache.playframework.mybatisplus.plugins.pagination.MySqlEstimateCountStrategy;
+import org.apache.playframework.mybatisplus.toolkit.SqlNormalizer;
 import org.apache.playframework.util.NetUtils;
 import org.apache.playframework.util.Request;
 import org.apache.playframework.util.SPUtil;
+import org.apache.playframework.util.SharedExecutors;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.management.ManagementFactory;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 /**
  * <p>
  * 分页拦截器
  * </p>
+ * <p>
+ * COUNT 经内层 Executor 执行，只有注册在本拦截器之前（内层）的插件能看到 COUNT 语句；注册在之后（外层）的插件只看到原语句，
+ * COUNT 在同一线程执行，沿用外层插件设置的线程状态。因此 MetricsInterceptor 必须在内层，ShardingInterceptor、
+ * ReadWriteRoutingInterceptor 必须在外层，第一次执行语句时按 Configuration 中的注册顺序校验，不满足时抛出异常。
+ * </p>
  *
  * @author hubin
  * @Date 2016-01-23
@@ -62,6 +103,9 @@ import java.util.regex.Pattern;
 @Intercepts({
 		@Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class, RowBounds.class,
 				ResultHandler.class }),
+		@Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+		@Signature(type = Executor.class, method = "commit", args = { boolean.class }),
+		@Signature(type = Executor.class, method = "rollback", args = { boolean.class }),
 		@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }) })
 public class PaginationInterceptor implements Interceptor {
 
@@ -69,14 +113,65 @@ public class PaginationInterceptor implements Interceptor {
 	private boolean overflowCurrent = false;
 	/* Count优化方式 */
 	private String optimizeType = "default";
+	/* Count估算策略 */
+	private CountStrategy countStrategy;
+	/* 估算值超过该值时使用估算总数 */
+	private long estimateThreshold = 1000000L;
 	/* 方言类型 */
 	private String dialectType;
 	/* 方言实现类 */
 	private String dialectClazz;
+	/* 游标分页参数名前缀 */
+	private static final String KEYSET_PARAMETER = "__keyset_";
+	/* 非事务查询 COUNT 与数据查询并行执行 */
+	private boolean parallelCount = false;
+	/* 并行 COUNT 等待秒数，语句设置了 timeout 时以语句为准 */
+	private int parallelCountTimeout = 30;
+	/* 格式化 SQL 缓存条数 */
+	private int sqlCacheSize = 1024;
+	/* 原始 SQL 对应的格式化 SQL，按最近使用淘汰，访问需同步 */
+	private final Map<String, String> normalizedSqls = new LinkedHashMap<String, String>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > sqlCacheSize;
+		}
+	};
+	/* COUNT 查询作为独立 MappedStatement 执行 */
+	private boolean countStatement = false;
+	/* COUNT 查询 MappedStatement ID 后缀 */
+	private static final String COUNT_SUFFIX = "_COUNT";
+	/* COUNT 缓存过期时间（秒），0 关闭 */
+	private int countCacheSeconds = 0;
+	/* COUNT 缓存最大条数 */
+	private int countCacheSize = 1000;
+	/* COUNT 缓存 */
+	private CountCache countCache;
+	/* Mapper 命名空间对应表名 */
+	private final Map<String, String> tableNames = new ConcurrentHashMap<String, String>();
+	/* 未提交事务内写过的表 */
+	private final Map<Object, Set<String>> pendingTables = new WeakHashMap<Object, Set<String>>();
+	/* 插件注册顺序已校验 */
+	private volatile boolean orderChecked = false;
 
 	public Object intercept(Invocation invocation) throws Throwable {
 
 		Object target = invocation.getTarget();
+		String method = invocation.getMethod().getName();
+		if (!orderChecked && target instanceof Executor && invocation.getArgs()[0] instanceof MappedStatement) {
+			checkInterceptorOrder(((MappedStatement) invocation.getArgs()[0]).getConfiguration());
+		}
+		if (target instanceof Executor && !"query".equals(method)) {
+			/* COUNT 缓存失效 */
+			if (countCache == null) {
+				return invocation.proceed();
+			}
+			if ("update".equals(method)) {
+				return update(invocation);
+			}
+			return transactionEnd(invocation);
+		}
 		if (target instanceof StatementHandler) {
 			StatementHandler statementHandler = (StatementHandler) target;
 			MetaObject metaStatementHandler = SystemMetaObject.forObject(statementHandler);
@@ -154,24 +249,25 @@ public class PaginationInterceptor implements Interceptor {
 			 * </p>
 			 */
 			if (rowBounds instanceof Pagination) {
-				Connection connection = null;
-				try {
-					connection = mappedStatement.getConfiguration().getEnvironment().getDataSource().getConnection();
-					Pagination page = (Pagination) rowBounds;
-					if (page.isSearchCount()) {
-						/*
-						 * COUNT 查询，去掉 ORDER BY 优化执行 SQL
-						 */
-						CountOptimize countOptimize = SqlUtils.getCountOptimize(originalSql, optimizeType, dialectType,
-								page.isOptimizeCount());
-						page = this.count(countOptimize.getCountSQL(), connection, mappedStatement, boundSql, page);
-						/** 总数 0 跳出执行 */
-						if (page.getTotal() <= 0) {
-							return invocation.proceed();
-						}
+				Pagination page = (Pagination) rowBounds;
+				if (page.isSearchCount()) {
+					/*
+					 * COUNT 查询，去掉 ORDER BY 优化执行 SQL，使用当前事务连接执行
+					 */
+					CountOptimize countOptimize = SqlUtils.getCountOptimize(originalSql, optimizeType, dialectType,
+							page.isOptimizeCount());
+					if (parallelCount && !overflowCurrent && !(page instanceof KeysetPagination)
+							&& !inTransaction((Executor) target)) {
+						return parallelCountQuery(invocation, countOptimize.getCountSQL(), mappedStatement, boundSql, page);
 					}
-				} finally {
-					IOUtils.closeQuietly(connection);
+					page = this.count(countOptimize.getCountSQL(), (Executor) target, null, mappedStatement, boundSql, page);
+					/** 总数 0 跳出执行 */
+					if (page.getTotal() <= 0) {
+						return invocation.proceed();
+					}
+				}
+				if (rowBounds instanceof KeysetPagination) {
+					return keysetQuery(invocation, mappedStatement, boundSql, (KeysetPagination) rowBounds);
 				}
 			}
 		}
@@ -180,6 +276,25 @@ public class PaginationInterceptor implements Interceptor {
 
 	}
 
+	/**
+	 * 校验插件注册顺序，先注册的插件在内层，见类注释
+	 */
+	private void checkInterceptorOrder(Configuration configuration) {
+		List<Interceptor> interceptors = configuration.getInterceptors();
+		int index = interceptors.indexOf(this);
+		for (int i = 0; index >= 0 && i < interceptors.size(); i++) {
+			Interceptor interceptor = interceptors.get(i);
+			if (i > index && interceptor instanceof MetricsInterceptor) {
+				throw new MybatisPlusException("MetricsInterceptor must be registered before PaginationInterceptor.");
+			}
+			if (i < index && (interceptor instanceof ShardingInterceptor || interceptor instanceof ReadWriteRoutingInterceptor)) {
+				throw new MybatisPlusException(interceptor.getClass().getSimpleName()
+						+ " must be registered after PaginationInterceptor.");
+			}
+		}
+		orderChecked = true;
+	}
+
 	/**
 	 * 获取数据库方言
 	 *
@@ -210,7 +325,377 @@ public class PaginationInterceptor implements Interceptor {
 	}
 
 	/**
-	 * 查询总记录条数
+	 * 是否在事务中，事务内 COUNT 与数据查询必须使用同一连接顺序执行
+	 */
+	private boolean inTransaction(Executor executor) throws SQLException {
+		return !executor.getTransaction().getConnection().getAutoCommit();
+	}
+
+	/**
+	 * <p>
+	 * COUNT 与数据查询并行执行
+	 * </p>
+	 * <p>
+	 * COUNT 在独立连接上由共享查询线程池 {@link SharedExecutors} 执行，数据查询在当前线程执行，两者完成后设置总记录数。
+	 * 线程池满时 COUNT 在当前线程执行。COUNT 线程沿用当前线程的读写分离标记，与数据查询使用同一类库；
+	 * COUNT 失败或超时时抛出异常，不返回总数为 0 的分页。
+	 * </p>
+	 */
+	private Object parallelCountQuery(Invocation invocation, final String countSql, final MappedStatement mappedStatement,
+			final BoundSql boundSql, final Pagination page) throws Throwable {
+		Future<Integer> future = SharedExecutors.submitQuery(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				Connection connection = null;
+				try {
+					connection = mappedStatement.getConfiguration().getEnvironment().getDataSource().getConnection();
+					Pagination countPage = new Pagination(page.getCurrent(), page.getSize());
+					return doCount(countSql, null, connection, mappedStatement, boundSql, countPage).getTotal();
+				} finally {
+					IOUtils.closeQuietly(connection);
+				}
+			}
+		});
+		Object result;
+		try {
+			result = invocation.proceed();
+		} catch (Throwable t) {
+			future.cancel(true);
+			throw t;
+		}
+		int timeout = mappedStatement.getTimeout() != null ? mappedStatement.getTimeout() : parallelCountTimeout;
+		try {
+			setTotal(page, future.get(timeout, TimeUnit.SECONDS));
+		} catch (ExecutionException e) {
+			throw e.getCause();
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new MybatisPlusException("Error: count query timed out after " + timeout + "s: " + mappedStatement.getId());
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * 游标分页查询
+	 * </p>
+	 * <p>
+	 * 游标条件与排序直接加到原 SQL：... WHERE (原条件) AND ((c1 &gt; ?) OR (c1 = ? AND c2 &gt; ?)) ORDER BY c1, c2 LIMIT n，
+	 * 索引可直接定位，MySQL 5.5/5.6 不会物化子查询。原 SQL 含 GROUP BY、HAVING、UNION、LIMIT、FOR UPDATE，
+	 * 或排序字段是查询字段别名时，包装为子查询 SELECT * FROM (sql) KP_T WHERE ... 执行。
+	 * 排序字段不含主键时追加主键，排序值相同的行不会跨页丢失或重复。
+	 * 未指定 sortProperties 时按 TableInfo 把列名解析为属性，结果对象没有该属性时在查询前抛出异常。
+	 * 查询完成后用最后一行的排序字段值设置下一页游标
+	 * </p>
+	 */
+	private Object keysetQuery(Invocation invocation, MappedStatement mappedStatement, BoundSql boundSql,
+			KeysetPagination page) throws Throwable {
+		String[] columns = page.getSortColumns();
+		String[] properties = page.getSortProperties();
+		/* 包装子查询时使用的排序字段，主键列有别名时为别名 */
+		String[] outerColumns = columns;
+		TableInfo table = getTableInfo(mappedStatement);
+		if (columns == null || columns.length == 0) {
+			/* 未指定排序字段，使用主键 */
+			if (table == null || table.getKeyProperty() == null) {
+				throw new MybatisPlusException("KeysetPagination sortColumns is not defined for " + mappedStatement.getId());
+			}
+			boolean alias = table.isKeyRelated() && table.getResultMap() == null;
+			columns = new String[] { table.getKeyColumn() };
+			outerColumns = new String[] { alias ? table.getKeyProperty() : table.getKeyColumn() };
+			properties = new String[] { table.getKeyProperty() };
+		}
+		Configuration configuration = mappedStatement.getConfiguration();
+		if (properties == null) {
+			properties = new String[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				properties[i] = ShardingInterceptor.propertyOf(table, columns[i]);
+			}
+			checkKeysetProperties(mappedStatement, properties);
+		}
+		if (table != null && table.getKeyColumn() != null && !containsIgnoreCase(columns, table.getKeyColumn())) {
+			/* 主键作为最后一个排序字段，保证排序唯一 */
+			boolean alias = table.isKeyRelated() && table.getResultMap() == null;
+			columns = append(columns, table.getKeyColumn());
+			outerColumns = append(outerColumns, alias ? table.getKeyProperty() : table.getKeyColumn());
+			properties = append(properties, table.getKeyProperty());
+		}
+		if (properties.length != columns.length) {
+			throw new MybatisPlusException("KeysetPagination sortProperties do not match sortColumns for "
+					+ mappedStatement.getId());
+		}
+		Object[] lastKeys = page.getLastKeys();
+		if (lastKeys != null && lastKeys.length != columns.length) {
+			throw new MybatisPlusException("KeysetPagination lastKeys must have " + columns.length
+					+ " values (sort columns and primary key) for " + mappedStatement.getId());
+		}
+		List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+		String sql = keysetSql(SqlNormalizer.normalize(boundSql.getSql()), columns, lastKeys != null, page.isAsc());
+		if (sql == null) {
+			sql = keysetSql("SELECT * FROM (" + boundSql.getSql() + ") KP_T", outerColumns, lastKeys != null,
+					page.isAsc());
+		}
+		if (lastKeys != null) {
+			/* 游标条件在原 SQL 参数之后 */
+			for (int i = 0; i < columns.length; i++) {
+				for (int j = 0; j < i; j++) {
+					parameterMappings.add(keysetParameterMapping(configuration, j, lastKeys[j]));
+				}
+				parameterMappings.add(keysetParameterMapping(configuration, i, lastKeys[i]));
+			}
+		}
+		String pageSql = getiDialect().buildPaginationSql(sql, 0, page.getSize());
+		BoundSql pageBoundSql = copyBoundSql(mappedStatement, boundSql, pageSql, parameterMappings);
+		if (lastKeys != null) {
+			for (int i = 0; i < columns.length; i++) {
+				pageBoundSql.setAdditionalParameter(KEYSET_PARAMETER + i, lastKeys[i]);
+			}
+		}
+
+		/* 已拼接 LIMIT，不再走分页逻辑 */
+		Object[] args = invocation.getArgs();
+		args[0] = copyMappedStatement(mappedStatement, new BoundSqlSqlSource(pageBoundSql));
+		args[2] = RowBounds.DEFAULT;
+		List<?> result = (List<?>) invocation.proceed();
+		page.setHasNext(result.size() >= page.getSize());
+		if (!result.isEmpty()) {
+			MetaObject last = SystemMetaObject.forObject(result.get(result.size() - 1));
+			Object[] nextKeys = new Object[properties.length];
+			for (int i = 0; i < properties.length; i++) {
+				nextKeys[i] = last.getValue(properties[i]);
+			}
+			page.setNextKeys(nextKeys);
+		}
+		return result;
+	}
+
+	/**
+	 * 结果对象不是 Map 时，游标属性必须可读，避免查询执行后才失败
+	 */
+	private static void checkKeysetProperties(MappedStatement mappedStatement, String[] properties) {
+		List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+		if (resultMaps == null || resultMaps.isEmpty() || Map.class.isAssignableFrom(resultMaps.get(0).getType())) {
+			return;
+		}
+		MetaClass metaClass = MetaClass.forClass(resultMaps.get(0).getType(),
+				mappedStatement.getConfiguration().getReflectorFactory());
+		for (String property : properties) {
+			if (!metaClass.hasGetter(property)) {
+				throw new MybatisPlusException("KeysetPagination sortProperties is required, no property for sort column "
+						+ property + " in " + mappedStatement.getId());
+			}
+		}
+	}
+
+	private static boolean containsIgnoreCase(String[] values, String value) {
+		for (String v : values) {
+			if (v.equalsIgnoreCase(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String[] append(String[] values, String value) {
+		String[] result = new String[values.length + 1];
+		System.arraycopy(values, 0, result, 0, values.length);
+		result[values.length] = value;
+		return result;
+	}
+
+	/**
+	 * 在 SQL 最外层加游标条件并替换 ORDER BY，无法直接改写时返回 null
+	 *
+	 * @param sql
+	 *            已格式化的 SQL
+	 * @param keyset
+	 *            是否有上一页游标
+	 */
+	static String keysetSql(String sql, String[] columns, boolean keyset, boolean asc) {
+		int where = -1;
+		int orderBy = -1;
+		int depth = 0;
+		char quote = 0;
+		/* 最外层 WHERE 之前、括号外的内容，用于判断别名 */
+		StringBuilder select = new StringBuilder();
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (where < 0 && orderBy < 0 && depth == 0) {
+				select.append(c);
+			}
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"' || c == '`') {
+				quote = c;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (depth == 0 && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))) {
+				if (where < 0 && isKeyword(sql, i, "WHERE")) {
+					where = i;
+				} else if (isKeyword(sql, i, "ORDER BY")) {
+					orderBy = i;
+				} else if (isKeyword(sql, i, "GROUP BY") || isKeyword(sql, i, "HAVING") || isKeyword(sql, i, "UNION")
+						|| isKeyword(sql, i, "LIMIT") || isKeyword(sql, i, "OFFSET") || isKeyword(sql, i, "FETCH")
+						|| isKeyword(sql, i, "FOR UPDATE") || isKeyword(sql, i, "LOCK IN")) {
+					return null;
+				}
+			}
+		}
+		String body = (orderBy < 0 ? sql : sql.substring(0, orderBy)).trim();
+		if (orderBy >= 0 && sql.indexOf('?', orderBy) >= 0) {
+			/* ORDER BY 中的参数会被丢弃 */
+			return null;
+		}
+		for (String column : columns) {
+			if (Pattern.compile("\\bAS\\s+[`\"]?" + Pattern.quote(column) + "\\b", Pattern.CASE_INSENSITIVE)
+					.matcher(select).find()) {
+				/* 别名不能用于 WHERE */
+				return null;
+			}
+		}
+		StringBuilder sb = new StringBuilder(body.length() + 64 * columns.length);
+		if (!keyset) {
+			sb.append(body);
+		} else if (where < 0) {
+			sb.append(body).append(" WHERE ");
+			appendKeysetCondition(sb, columns, asc);
+		} else {
+			/* 原条件加括号，避免顶层 OR 改变优先级 */
+			sb.append(body, 0, where).append("WHERE (").append(body.substring(where + "WHERE".length()).trim())
+					.append(") AND (");
+			appendKeysetCondition(sb, columns, asc);
+			sb.append(")");
+		}
+		sb.append(" ORDER BY ");
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(columns[i]).append(asc ? " ASC" : " DESC");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * (c1 &gt; ?) OR (c1 = ? AND c2 &gt; ?)
+	 */
+	private static void appendKeysetCondition(StringBuilder sb, String[] columns, boolean asc) {
+		String operator = asc ? " > ?" : " < ?";
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				sb.append(" OR ");
+			}
+			sb.append("(");
+			for (int j = 0; j < i; j++) {
+				sb.append(columns[j]).append(" = ? AND ");
+			}
+			sb.append(columns[i]).append(operator).append(")");
+		}
+	}
+
+	private static boolean isKeyword(String sql, int index, String keyword) {
+		int end = index + keyword.length();
+		return sql.regionMatches(true, index, keyword, 0, keyword.length())
+				&& (end == sql.length() || !isIdentifierPart(sql.charAt(end)));
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+	}
+
+	private ParameterMapping keysetParameterMapping(Configuration configuration, int index, Object value) {
+		Class<?> javaType = value == null ? Object.class : value.getClass();
+		return new ParameterMapping.Builder(configuration, KEYSET_PARAMETER + index, javaType).build();
+	}
+
+	/**
+	 * 根据返回类型获取实体表信息
+	 */
+	private TableInfo getTableInfo(MappedStatement mappedStatement) {
+		List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+		if (resultMaps == null || resultMaps.isEmpty()) {
+			return null;
+		}
+		return TableInfoHelper.getTableInfo(resultMaps.get(0).getType());
+	}
+
+	/**
+	 * 复制 BoundSql，保留 foreach 等动态参数
+	 */
+	@SuppressWarnings("unchecked")
+	private BoundSql copyBoundSql(MappedStatement mappedStatement, BoundSql boundSql, String sql,
+			List<ParameterMapping> parameterMappings) {
+		BoundSql newBoundSql = new BoundSql(mappedStatement.getConfiguration(), sql, parameterMappings,
+				boundSql.getParameterObject());
+		Map<String, Object> additionalParameters = (Map<String, Object>) SystemMetaObject.forObject(boundSql)
+				.getValue("additionalParameters");
+		for (Map.Entry<String, Object> entry : additionalParameters.entrySet()) {
+			newBoundSql.setAdditionalParameter(entry.getKey(), entry.getValue());
+		}
+		return newBoundSql;
+	}
+
+	/**
+	 * 使用新的 SqlSource 复制 MappedStatement
+	 */
+	private MappedStatement copyMappedStatement(MappedStatement ms, SqlSource sqlSource) {
+		MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), ms.getId(), sqlSource,
+				ms.getSqlCommandType());
+		builder.resource(ms.getResource());
+		builder.fetchSize(ms.getFetchSize());
+		builder.statementType(ms.getStatementType());
+		builder.keyGenerator(ms.getKeyGenerator());
+		builder.timeout(ms.getTimeout());
+		builder.parameterMap(ms.getParameterMap());
+		builder.resultMaps(ms.getResultMaps());
+		builder.resultSetType(ms.getResultSetType());
+		builder.cache(ms.getCache());
+		builder.flushCacheRequired(ms.isFlushCacheRequired());
+		builder.useCache(ms.isUseCache());
+		builder.databaseId(ms.getDatabaseId());
+		builder.lang(ms.getLang());
+		return builder.build();
+	}
+
+	/**
+	 * 固定 BoundSql 的 SqlSource
+	 */
+	private static class BoundSqlSqlSource implements SqlSource {
+
+		private final BoundSql boundSql;
+
+		BoundSqlSqlSource(BoundSql boundSql) {
+			this.boundSql = boundSql;
+		}
+
+		public BoundSql getBoundSql(Object parameterObject) {
+			return boundSql;
+		}
+	}
+
+	/**
+	 * COUNT 估算策略，estimate 为 MySQL 估算，其它值为实现类
+	 */
+	private CountStrategy getCountStrategy(String countStrategy) {
+		if ("estimate".equalsIgnoreCase(countStrategy)) {
+			return new MySqlEstimateCountStrategy();
+		}
+		try {
+			Class<?> clazz = Class.forName(countStrategy);
+			if (CountStrategy.class.isAssignableFrom(clazz)) {
+				return (CountStrategy) clazz.newInstance();
+			}
+		} catch (Exception e) {
+			throw new MybatisPlusException("CountStrategy :" + countStrategy + " can not be instantiated");
+		}
+		throw new MybatisPlusException("Class :" + countStrategy + " is not a CountStrategy");
+	}
+
+	/**
+	 * 查询总记录条数，开启 COUNT 缓存时优先读取缓存
 	 *
 	 * @param sql
 	 * @param connection
@@ -219,10 +704,77 @@ public class PaginationInterceptor implements Interceptor {
 	 * @param page
 	 */
 	public Pagination count(String sql, Connection connection, MappedStatement mappedStatement, BoundSql boundSql, Pagination page) {
+		return count(sql, null, connection, mappedStatement, boundSql, page);
+	}
+
+	private Pagination count(String sql, Executor executor, Connection connection, MappedStatement mappedStatement,
+			BoundSql boundSql, Pagination page) {
+		try {
+			return doCount(sql, executor, connection, mappedStatement, boundSql, page);
+		} catch (Exception e) {
+			// ignored
+		}
+		return page;
+	}
+
+	/**
+	 * 查询总记录数：估算、COUNT 缓存、执行 COUNT，失败时抛出异常
+	 */
+	private Pagination doCount(String sql, Executor executor, Connection connection, MappedStatement mappedStatement,
+			BoundSql boundSql, Pagination page) throws Exception {
+		if (countStrategy != null && page instanceof EstimatePage) {
+			/* 估算总数，超过阈值直接使用估算值 */
+			Connection estimateConnection = connection != null ? connection : executor.getTransaction().getConnection();
+			long estimate = countStrategy.estimate(estimateConnection, getTableName(mappedStatement), sql,
+					mappedStatement, boundSql);
+			if (estimate >= estimateThreshold) {
+				((EstimatePage<?>) page).setTotalEstimated(true);
+				return setTotal(page, (int) Math.min(estimate, Integer.MAX_VALUE));
+			}
+		}
+		String table = countCache == null ? null : getTableName(mappedStatement);
+		if (table == null) {
+			return setTotal(page, executeCount(sql, executor, connection, mappedStatement, boundSql));
+		}
+		List<Object> parameters = getParameterValues(mappedStatement, boundSql);
+		Integer total = countCache.get(table, sql, parameters);
+		if (total == null) {
+			long version = countCache.version(table);
+			total = executeCount(sql, executor, connection, mappedStatement, boundSql);
+			countCache.put(table, sql, parameters, version, total);
+		}
+		return setTotal(page, total);
+	}
+
+	/**
+	 * 执行 COUNT 查询
+	 * <p>
+	 * 未指定连接时使用 Executor 当前事务连接，不再从连接池借第二个连接；
+	 * countStatement 模式下 COUNT 作为独立 MappedStatement 经 Executor 执行，走相同的插件、语句缓存与超时设置
+	 * </p>
+	 */
+	@SuppressWarnings("unchecked")
+	private int executeCount(String sql, Executor executor, Connection connection, MappedStatement mappedStatement,
+			BoundSql boundSql) throws SQLException {
+		if (connection == null && countStatement) {
+			BoundSql countBoundSql = copyBoundSql(mappedStatement, boundSql, sql, boundSql.getParameterMappings());
+			List<Object> result = executor.query(countMappedStatement(mappedStatement, countBoundSql),
+					boundSql.getParameterObject(), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+			if (result.isEmpty() || result.get(0) == null) {
+				return 0;
+			}
+			return ((Number) result.get(0)).intValue();
+		}
+		if (connection == null) {
+			connection = executor.getTransaction().getConnection();
+		}
 		PreparedStatement pstmt = null;
 		ResultSet rs = null;
 		try {
 			pstmt = connection.prepareStatement(sql);
+			if (mappedStatement.getTimeout() != null) {
+				pstmt.setQueryTimeout(mappedStatement.getTimeout());
+			}
 			DefaultParameterHandler parameterHandler = new MybatisDefaultParameterHandler(mappedStatement,
 					boundSql.getParameterObject(), boundSql);
 			parameterHandler.setParameters(pstmt);
@@ -231,22 +783,185 @@ public class PaginationInterceptor implements Interceptor {
 			if (rs.next()) {
 				total = rs.getInt(1);
 			}
-			page.setTotal(total);
-			/*
-			 * 溢出总页数，设置第一页
-			 */
-			if (overflowCurrent && (page.getCurrent() > page.getPages())) {
-				page = new Pagination(1, page.getSize());
-				page.setTotal(total);
-			}
-		} catch (Exception e) {
-			// ignored
+			return total;
 		} finally {
 			IOUtils.closeQuietly(pstmt, rs);
 		}
+	}
+
+	/**
+	 * COUNT 查询 MappedStatement，ID 为原 ID 加 _COUNT 后缀
+	 */
+	private MappedStatement countMappedStatement(MappedStatement ms, BoundSql countBoundSql) {
+		String id = ms.getId() + COUNT_SUFFIX;
+		List<ResultMap> resultMaps = new ArrayList<ResultMap>(1);
+		resultMaps.add(new ResultMap.Builder(ms.getConfiguration(), id + "-Inline", Integer.class,
+				new ArrayList<ResultMapping>()).build());
+		MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), id,
+				new BoundSqlSqlSource(countBoundSql), SqlCommandType.SELECT);
+		builder.resource(ms.getResource());
+		builder.statementType(ms.getStatementType());
+		builder.timeout(ms.getTimeout());
+		builder.parameterMap(ms.getParameterMap());
+		builder.resultMaps(resultMaps);
+		builder.databaseId(ms.getDatabaseId());
+		builder.lang(ms.getLang());
+		return builder.build();
+	}
+
+	/**
+	 * 设置总记录数，溢出总页数设置第一页
+	 */
+	private Pagination setTotal(Pagination page, int total) {
+		page.setTotal(total);
+		if (overflowCurrent && (page.getCurrent() > page.getPages())) {
+			page = new Pagination(1, page.getSize());
+			page.setTotal(total);
+		}
 		return page;
 	}
 
+	/**
+	 * 绑定参数值，与 DefaultParameterHandler 取值方式一致
+	 */
+	private List<Object> getParameterValues(MappedStatement mappedStatement, BoundSql boundSql) {
+		Configuration configuration = mappedStatement.getConfiguration();
+		TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+		Object parameterObject = boundSql.getParameterObject();
+		List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+		List<Object> values = new ArrayList<Object>(parameterMappings.size());
+		MetaObject metaObject = null;
+		for (ParameterMapping parameterMapping : parameterMappings) {
+			if (parameterMapping.getMode() == ParameterMode.OUT) {
+				continue;
+			}
+			String property = parameterMapping.getProperty();
+			if (boundSql.hasAdditionalParameter(property)) {
+				values.add(boundSql.getAdditionalParameter(property));
+			} else if (parameterObject == null) {
+				values.add(null);
+			} else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+				values.add(parameterObject);
+			} else {
+				if (metaObject == null) {
+					metaObject = configuration.newMetaObject(parameterObject);
+				}
+				values.add(metaObject.getValue(property));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Mapper 命名空间对应的表名，非 BaseMapper 命名空间返回 null
+	 */
+	private String getTableName(MappedStatement mappedStatement) {
+		String id = mappedStatement.getId();
+		String namespace = id.substring(0, id.lastIndexOf('.'));
+		String table = tableNames.get(namespace);
+		if (table == null) {
+			table = "";
+			try {
+				Class<?> mapperClass = Resources.classForName(namespace);
+				for (Type type : mapperClass.getGenericInterfaces()) {
+					if (type instanceof ParameterizedType && BaseMapper.class.isAssignableFrom(mapperClass)) {
+						Type modelType = ((ParameterizedType) type).getActualTypeArguments()[0];
+						TableInfo tableInfo = modelType instanceof Class ? TableInfoHelper.getTableInfo((Class<?>) modelType) : null;
+						if (tableInfo != null) {
+							table = tableInfo.getTableName();
+						}
+						break;
+					}
+				}
+			} catch (ClassNotFoundException e) {
+				// XML 命名空间不是 Mapper 接口
+			}
+			tableNames.put(namespace, table);
+		}
+		return table.length() == 0 ? null : table;
+	}
+
+	/**
+	 * <p>
+	 * 写操作，失效对应表的 COUNT 缓存，事务结束时再次失效
+	 * </p>
+	 * <p>
+	 * Spring 事务中 Executor.commit 在 JDBC 提交之前执行，提交前其它连接仍会读到旧数据并写入缓存，
+	 * 因此开启事务同步时在 afterCompletion（连接提交或回滚之后）失效；
+	 * 未开启事务同步时在 Executor.commit / rollback 之后失效。
+	 * </p>
+	 */
+	@SuppressWarnings("unchecked")
+	private Object update(Invocation invocation) throws Throwable {
+		Object result = invocation.proceed();
+		String table = getTableName((MappedStatement) invocation.getArgs()[0]);
+		if (table != null) {
+			countCache.invalidate(table);
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				Set<String> tables = (Set<String>) TransactionSynchronizationManager.getResource(this);
+				if (tables == null) {
+					tables = new HashSet<String>();
+					TransactionSynchronizationManager.bindResource(this, tables);
+					TransactionSynchronizationManager.registerSynchronization(new CountCacheSynchronization(this));
+				}
+				tables.add(table);
+				return result;
+			}
+			synchronized (pendingTables) {
+				Set<String> tables = pendingTables.get(invocation.getTarget());
+				if (tables == null) {
+					tables = new HashSet<String>();
+					pendingTables.put(invocation.getTarget(), tables);
+				}
+				tables.add(table);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 事务结束，失效事务内写过的表的 COUNT 缓存
+	 */
+	private Object transactionEnd(Invocation invocation) throws Throwable {
+		try {
+			return invocation.proceed();
+		} finally {
+			Set<String> tables;
+			synchronized (pendingTables) {
+				tables = pendingTables.remove(invocation.getTarget());
+			}
+			if (tables != null) {
+				for (String table : tables) {
+					countCache.invalidate(table);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 事务完成后失效事务内写过的表的 COUNT 缓存
+	 */
+	private static class CountCacheSynchronization extends TransactionSynchronizationAdapter {
+
+		private final PaginationInterceptor interceptor;
+
+		CountCacheSynchronization(PaginationInterceptor interceptor) {
+			this.interceptor = interceptor;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void afterCompletion(int status) {
+			Set<String> tables = (Set<String>) TransactionSynchronizationManager.unbindResourceIfPossible(interceptor);
+			CountCache countCache = interceptor.countCache;
+			if (tables != null && countCache != null) {
+				for (String table : tables) {
+					countCache.invalidate(table);
+				}
+			}
+		}
+	}
+
 	public Object plugin(Object target) {
 		if (target instanceof Executor) {
 			return Plugin.wrap(target, this);
@@ -260,12 +975,40 @@ public class PaginationInterceptor implements Interceptor {
 	public void setProperties(Properties prop) {
 		String dialectType = prop.getProperty("dialectType");
 		String dialectClazz = prop.getProperty("dialectClazz");
+		String countCacheSeconds = prop.getProperty("countCacheSeconds");
+		String countCacheSize = prop.getProperty("countCacheSize");
+		String countStatement = prop.getProperty("countStatement");
+		String countStrategy = prop.getProperty("countStrategy");
+		String estimateThreshold = prop.getProperty("estimateThreshold");
+		String parallelCount = prop.getProperty("parallelCount");
+		String parallelCountTimeout = prop.getProperty("parallelCountTimeout");
 		if (StringUtils.isNotEmpty(dialectType)) {
 			this.dialectType = dialectType;
 		}
 		if (StringUtils.isNotEmpty(dialectClazz)) {
 			this.dialectClazz = dialectClazz;
 		}
+		if (StringUtils.isNotEmpty(countStrategy)) {
+			this.countStrategy = getCountStrategy(countStrategy);
+		}
+		if (StringUtils.isNotEmpty(estimateThreshold)) {
+			this.estimateThreshold = Long.parseLong(estimateThreshold);
+		}
+		if (StringUtils.isNotEmpty(parallelCount)) {
+			this.parallelCount = Boolean.valueOf(parallelCount);
+		}
+		if (StringUtils.isNotEmpty(parallelCountTimeout)) {
+			this.parallelCountTimeout = Integer.parseInt(parallelCountTimeout);
+		}
+		if (StringUtils.isNotEmpty(countStatement)) {
+			this.countStatement = Boolean.valueOf(countStatement);
+		}
+		if (StringUtils.isNotEmpty(countCacheSize)) {
+			setCountCacheSize(Integer.parseInt(countCacheSize));
+		}
+		if (StringUtils.isNotEmpty(countCacheSeconds)) {
+			setCountCacheSeconds(Integer.parseInt(countCacheSeconds));
+		}
 	}
 
 	public void setDialectType(String dialectType) {
@@ -283,6 +1026,40 @@ public class PaginationInterceptor implements Interceptor {
 	public void setOptimizeType(String optimizeType) {
 		this.optimizeType = optimizeType;
 	}
+
+	public void setCountStrategy(CountStrategy countStrategy) {
+		this.countStrategy = countStrategy;
+	}
+
+	public void setEstimateThreshold(long estimateThreshold) {
+		this.estimateThreshold = estimateThreshold;
+	}
+
+	public void setParallelCount(boolean parallelCount) {
+		this.parallelCount = parallelCount;
+	}
+
+	public void setParallelCountTimeout(int parallelCountTimeout) {
+		this.parallelCountTimeout = parallelCountTimeout;
+	}
+
+	public void setSqlCacheSize(int sqlCacheSize) {
+		this.sqlCacheSize = sqlCacheSize;
+	}
+
+	public void setCountStatement(boolean countStatement) {
+		this.countStatement = countStatement;
+	}
+
+	public void setCountCacheSeconds(int countCacheSeconds) {
+		this.countCacheSeconds = countCacheSeconds;
+		this.countCache = countCacheSeconds > 0 ? new CountCache(countCacheSeconds, countCacheSize) : null;
+	}
+
+	public void setCountCacheSize(int countCacheSize) {
+		this.countCacheSize = countCacheSize;
+		this.countCache = countCacheSeconds > 0 ? new CountCache(countCacheSeconds, countCacheSize) : null;
+	}
 	
 	
 	private static String ip;
@@ -294,38 +1071,43 @@ public class PaginationInterceptor implements Interceptor {
 		pid=pid.replaceAll("localhost", ip);
 	}
 	
-	private String buildSql(String sql, Configuration configuration) {
+	/* SQL 追踪注释固定后缀 */
+	private static final String API_TAG_SUFFIX;
 
+	static {
+		StringBuilder suffix = new StringBuilder();
+		SqlNormalizer.appendCommentText(suffix, pid);
+		suffix.append(" spid=");
+		SqlNormalizer.appendCommentText(suffix, SPUtil.getSpid());
+		/* db = configuration.getVariables().getProperty("database_name"); */
+		suffix.append(" dbname=null*/");
+		API_TAG_SUFFIX = suffix.toString();
+	}
+
+	/**
+	 * 删除 sql \/*...*\/ 的多行注释和以 -- 开始的单行注释（防止 sql 注入），格式化空白，追加 from_api 追踪注释。
+	 * 注入语句的 SQL 反复出现，格式化结果按原始 SQL 缓存。
+	 */
+	private String buildSql(String sql, Configuration configuration) {
 		if (sql.indexOf(" /*from_api:") != -1) {
 			return sql;
-		} else {
-			String db = null;
-			Environment env = null;
-			if (configuration != null) {
-				env = configuration.getEnvironment();
-				/*db = configuration.getVariables().getProperty("database_name");*/
+		}
+		String normalized;
+		synchronized (normalizedSqls) {
+			normalized = normalizedSqls.get(sql);
+		}
+		if (normalized == null) {
+			normalized = SqlNormalizer.normalize(sql);
+			synchronized (normalizedSqls) {
+				normalizedSqls.put(sql, normalized);
 			}
-			
-			/**
-			 * 删除sql \/*...*\/的多行注释，和以 -- 开始的单行注释
-			 */
-			Pattern p = Pattern
-					.compile("(?ms)('(?:''|[^'])*')|--.*?$|/\\*.*?\\*/");
-			sql = p.matcher(sql).replaceAll("$1");//\/*...*\/的多行注释，和以 -- 开始的单行注释 防止sql注入
-			StringBuilder sb = new StringBuilder(sql);
-			sb.append(" /*from_api:");
-			sb.append(Request.getId());
-			sb.append(pid);
-			sb.append(" spid=");
-			sb.append(SPUtil.getSpid());
-			sb.append(" dbname=");
-			sb.append(db);
-			sb.append("*/");
-			sql = sb.toString().replaceAll("\n", " ").replaceAll("\t", " ")
-					.replaceAll("[\\s]+", " ");//格式化sql语句
-		 
-			return sql;
 		}
+		StringBuilder sb = new StringBuilder(normalized.length() + 128);
+		sb.append(normalized);
+		sb.append(" /*from_api:");
+		SqlNormalizer.appendCommentText(sb, Request.getId());
+		sb.append(API_TAG_SUFFIX);
+		return sb.toString();
 	}
 	
 }
@@ -0,0 +1,177 @@
+package org.apache.playframework.mybatisplus.plugins;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.playframework.mybatisplus.enums.SqlMethod;
+import org.apache.playframework.mybatisplus.plugins.routing.ReadWriteRoutingDataSource;
+import org.apache.playframework.util.Request;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.baomidou.mybatisplus.toolkit.StringUtils;
+
+/**
+ * <p>
+ * 读写分离拦截器
+ * </p>
+ * <p>
+ * 非事务内 AutoSqlInjector 注入的查询语句路由到从库（ReadWriteRoutingDataSource），其它语句使用主库。
+ * 同一请求（Request.getId()）写入后 readYourWritesMillis 内的查询仍走主库，避免读到从库延迟前的数据。
+ * 需注册在 PaginationInterceptor 之后（外层），使分页 COUNT 与数据查询使用同一个库。
+ * </p>
+ *
+ * @author willenfoo
+ */
+@Intercepts({
+		@Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class, RowBounds.class,
+				ResultHandler.class }),
+		@Signature(type = Executor.class, method = "queryCursor", args = { MappedStatement.class, Object.class,
+				RowBounds.class }),
+		@Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }) })
+public class ReadWriteRoutingInterceptor implements Interceptor {
+
+	/* 写入后查询走主库的时间（毫秒），0 关闭 */
+	private long readYourWritesMillis = 1000L;
+
+	/* 所有查询语句都路由到从库，默认只路由注入语句 */
+	private boolean routeAllSelects = false;
+
+	/* 请求 ID - 最后写入时间 */
+	private final Map<String, Long> lastWrites = new ConcurrentHashMap<String, Long>();
+
+	/* 超过该条数时清理过期记录 */
+	private int maxTrackedRequests = 10000;
+
+	/* 注入的查询方法名 */
+	private static final Set<String> SELECT_METHODS = new HashSet<String>();
+
+	static {
+		for (SqlMethod sqlMethod : SqlMethod.values()) {
+			if (sqlMethod.getMethod().startsWith("select")) {
+				SELECT_METHODS.add(sqlMethod.getMethod());
+			}
+		}
+	}
+
+	public Object intercept(Invocation invocation) throws Throwable {
+		MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+		if (ms.getSqlCommandType() != SqlCommandType.SELECT) {
+			Boolean previous = ReadWriteRoutingDataSource.setReplica(Boolean.FALSE);
+			try {
+				return invocation.proceed();
+			} finally {
+				ReadWriteRoutingDataSource.setReplica(previous);
+				recordWrite();
+			}
+		}
+		if (!isReplicaRead(ms)) {
+			return invocation.proceed();
+		}
+		Boolean previous = ReadWriteRoutingDataSource.setReplica(Boolean.TRUE);
+		try {
+			return invocation.proceed();
+		} finally {
+			ReadWriteRoutingDataSource.setReplica(previous);
+		}
+	}
+
+	/**
+	 * 是否走从库：非事务同步（事务或 SUPPORTS 传播下 SqlSession 会复用连接）、可路由语句、非本请求刚写入
+	 */
+	protected boolean isReplicaRead(MappedStatement ms) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			return false;
+		}
+		if (!routeAllSelects && !isInjectedSelect(ms.getId())) {
+			return false;
+		}
+		if (readYourWritesMillis > 0) {
+			String requestId = Request.getId();
+			Long lastWrite = lastWrites.get(requestId);
+			if (lastWrite != null) {
+				if (System.currentTimeMillis() - lastWrite < readYourWritesMillis) {
+					return false;
+				}
+				lastWrites.remove(requestId, lastWrite);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 注入的查询语句，包括分页拦截器派生的 COUNT 语句（方法名_COUNT）
+	 */
+	private static boolean isInjectedSelect(String id) {
+		String method = id.substring(id.lastIndexOf('.') + 1);
+		int index = method.indexOf('_');
+		if (index > 0) {
+			method = method.substring(0, index);
+		}
+		return SELECT_METHODS.contains(method);
+	}
+
+	private void recordWrite() {
+		if (readYourWritesMillis <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		lastWrites.put(Request.getId(), now);
+		if (lastWrites.size() > maxTrackedRequests) {
+			Iterator<Long> iterator = lastWrites.values().iterator();
+			while (iterator.hasNext()) {
+				if (now - iterator.next() >= readYourWritesMillis) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	public Object plugin(Object target) {
+		if (target instanceof Executor) {
+			return Plugin.wrap(target, this);
+		}
+		return target;
+	}
+
+	public void setProperties(Properties prop) {
+		String readYourWritesMillis = prop.getProperty("readYourWritesMillis");
+		String routeAllSelects = prop.getProperty("routeAllSelects");
+		String maxTrackedRequests = prop.getProperty("maxTrackedRequests");
+		if (StringUtils.isNotEmpty(readYourWritesMillis)) {
+			this.readYourWritesMillis = Long.parseLong(readYourWritesMillis);
+		}
+		if (StringUtils.isNotEmpty(routeAllSelects)) {
+			this.routeAllSelects = Boolean.valueOf(routeAllSelects);
+		}
+		if (StringUtils.isNotEmpty(maxTrackedRequests)) {
+			this.maxTrackedRequests = Integer.parseInt(maxTrackedRequests);
+		}
+	}
+
+	public void setReadYourWritesMillis(long readYourWritesMillis) {
+		this.readYourWritesMillis = readYourWritesMillis;
+	}
+
+	public void setRouteAllSelects(boolean routeAllSelects) {
+		this.routeAllSelects = routeAllSelects;
+	}
+
+	public void setMaxTrackedRequests(int maxTrackedRequests) {
+		this.maxTrackedRequests = maxTrackedRequests;
+	}
+
+}
@@ -0,0 +1,616 @@
+package org.apache.playframework.mybatisplus.plugins;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.apache.playframework.mybatisplus.plugins.pagination.KeysetPagination;
+import org.apache.playframework.mybatisplus.plugins.sharding.ShardingStrategy;
+import org.apache.playframework.util.SharedExecutors;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.baomidou.mybatisplus.entity.TableFieldInfo;
+import com.baomidou.mybatisplus.entity.TableInfo;
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+import com.baomidou.mybatisplus.mapper.BaseMapper;
+import com.baomidou.mybatisplus.plugins.pagination.Pagination;
+import com.baomidou.mybatisplus.toolkit.StringUtils;
+import com.baomidou.mybatisplus.toolkit.TableInfoHelper;
+
+/**
+ * <p>
+ * 分表拦截器
+ * </p>
+ * <p>
+ * 按 ShardingStrategy 将注入语句中的逻辑表名改写为物理表名。解析到多个物理表时：查询在非事务下并行执行，
+ * 按 SQL 的 ORDER BY 归并排序后截取分页，分页上限（offset + size）下推到每个分表，总数为各分表 COUNT 之和；
+ * COUNT / SUM 单值查询（如 selectCount）各分表结果相加；更新、删除依次在各分表执行并累加影响行数；
+ * 插入与游标查询必须落在单个分表。
+ * </p>
+ * <p>
+ * 需注册在 PaginationInterceptor 之后（外层），分表后的语句再由 PaginationInterceptor 分页。
+ * </p>
+ *
+ * @author willenfoo
+ */
+@Intercepts({
+		@Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class, RowBounds.class,
+				ResultHandler.class }),
+		@Signature(type = Executor.class, method = "queryCursor", args = { MappedStatement.class, Object.class,
+				RowBounds.class }),
+		@Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }) })
+public class ShardingInterceptor implements Interceptor {
+
+	/* 分表语句 ID 后缀，不再分表 */
+	private static final String SHARD_SUFFIX = "_SHARD";
+	/* 分表 COUNT 语句 ID 后缀 */
+	private static final String COUNT_SUFFIX = "_COUNT" + SHARD_SUFFIX;
+	/* 单行 COUNT / SUM 聚合查询，各分表结果相加 */
+	private static final Pattern AGGREGATE = Pattern.compile("^\\s*SELECT\\s+(COUNT|SUM)\\s*\\([^()]*\\)(\\s+(AS\\s+)?\\w+)?\\s+FROM\\s",
+			Pattern.CASE_INSENSITIVE);
+	/* 逻辑表名 - 分表策略 */
+	private Map<String, ShardingStrategy> strategies = new HashMap<String, ShardingStrategy>();
+	/* Mapper 命名空间对应表名 */
+	private final Map<String, String> tableNames = new ConcurrentHashMap<String, String>();
+	/* 逻辑表名匹配 */
+	private final Map<String, Pattern> tablePatterns = new ConcurrentHashMap<String, Pattern>();
+
+	public Object intercept(Invocation invocation) throws Throwable {
+		Object[] args = invocation.getArgs();
+		MappedStatement ms = (MappedStatement) args[0];
+		if (strategies.isEmpty() || ms.getId().endsWith(SHARD_SUFFIX)) {
+			return invocation.proceed();
+		}
+		String logicTable = getTableName(ms);
+		ShardingStrategy strategy = logicTable == null ? null : strategies.get(logicTable);
+		if (strategy == null) {
+			return invocation.proceed();
+		}
+		Object parameter = args[1];
+		List<String> tables = strategy.resolve(logicTable, parameter);
+		if (tables == null || tables.isEmpty()) {
+			throw new MybatisPlusException("ShardingStrategy resolved no table for " + ms.getId());
+		}
+		BoundSql boundSql = ms.getBoundSql(parameter);
+		if (tables.size() == 1) {
+			args[0] = shardStatement(ms, boundSql, logicTable, tables.get(0));
+			return invocation.proceed();
+		}
+		if ("queryCursor".equals(invocation.getMethod().getName())) {
+			/* 游标逐行读取，无法跨分表归并 */
+			throw new MybatisPlusException("Cursor query across shards is not supported: " + ms.getId());
+		}
+		Executor executor = (Executor) invocation.getTarget();
+		if (ms.getSqlCommandType() == SqlCommandType.SELECT) {
+			return query(executor, ms, boundSql, parameter, (RowBounds) args[2], (ResultHandler) args[3], logicTable, tables);
+		}
+		if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+			throw new MybatisPlusException("Insert across shards is not supported: " + ms.getId());
+		}
+		int count = 0;
+		for (String table : tables) {
+			count += executor.update(shardStatement(ms, boundSql, logicTable, table), parameter);
+		}
+		return count;
+	}
+
+	/**
+	 * 跨分表查询
+	 */
+	private Object query(Executor executor, MappedStatement ms, BoundSql boundSql, Object parameter, RowBounds rowBounds,
+			ResultHandler resultHandler, String logicTable, List<String> tables) throws Throwable {
+		if (rowBounds instanceof KeysetPagination) {
+			throw new MybatisPlusException("KeysetPagination across shards is not supported: " + ms.getId());
+		}
+		if (resultHandler == Executor.NO_RESULT_HANDLER && isAggregate(ms, boundSql.getSql())) {
+			return aggregate(executor, ms, boundSql, parameter, logicTable, tables);
+		}
+		Pagination page = rowBounds instanceof Pagination ? (Pagination) rowBounds : null;
+		boolean limited = rowBounds != null && rowBounds != RowBounds.DEFAULT;
+		int offset = page != null ? page.getOffsetCurrent() : limited ? rowBounds.getOffset() : 0;
+		int limit = limited ? rowBounds.getLimit() : RowBounds.NO_ROW_LIMIT;
+		List<MappedStatement> statements = new ArrayList<MappedStatement>(tables.size());
+		List<RowBounds> bounds = new ArrayList<RowBounds>(tables.size());
+		for (String table : tables) {
+			statements.add(shardStatement(ms, boundSql, logicTable, table));
+			bounds.add(shardRowBounds(page, offset, limit));
+		}
+		if (page != null && page.isSearchCount()) {
+			for (String table : tables) {
+				statements.add(countStatement(ms, boundSql, logicTable, table));
+				bounds.add(RowBounds.DEFAULT);
+			}
+		}
+		boolean parallel = resultHandler == Executor.NO_RESULT_HANDLER
+				&& !TransactionSynchronizationManager.isSynchronizationActive();
+		List<List<Object>> results = parallel ? parallelQuery(ms.getConfiguration(), statements, parameter, bounds)
+				: sequentialQuery(executor, statements, parameter, bounds, resultHandler);
+		if (resultHandler != Executor.NO_RESULT_HANDLER) {
+			/* 结果已逐行回调 */
+			return null;
+		}
+		if (page != null && page.isSearchCount()) {
+			int total = 0;
+			for (List<Object> count : results.subList(tables.size(), results.size())) {
+				if (!count.isEmpty() && count.get(0) != null) {
+					total += ((Number) count.get(0)).intValue();
+				}
+			}
+			page.setTotal(total);
+		}
+		List<Object> rows = merge(results.subList(0, tables.size()), orderComparator(ms, boundSql.getSql(), page));
+		if (offset >= rows.size()) {
+			return new ArrayList<Object>();
+		}
+		if (offset > 0 || (limit != RowBounds.NO_ROW_LIMIT && offset + limit < rows.size())) {
+			int end = limit == RowBounds.NO_ROW_LIMIT ? rows.size() : (int) Math.min(rows.size(), (long) offset + limit);
+			return new ArrayList<Object>(rows.subList(offset, end));
+		}
+		return rows;
+	}
+
+	/**
+	 * 返回单个数值的 COUNT / SUM 查询（如 selectCount），每个分表返回一行，需相加为一行
+	 */
+	private static boolean isAggregate(MappedStatement ms, String sql) {
+		List<ResultMap> resultMaps = ms.getResultMaps();
+		if (resultMaps == null || resultMaps.size() != 1) {
+			return false;
+		}
+		Class<?> type = resultMaps.get(0).getType();
+		if (!Number.class.isAssignableFrom(type) && type != int.class && type != long.class) {
+			return false;
+		}
+		return AGGREGATE.matcher(sql).find() && !sql.toUpperCase().contains("GROUP BY");
+	}
+
+	/**
+	 * 各分表聚合值相加，按语句结果类型返回一行
+	 */
+	private Object aggregate(Executor executor, MappedStatement ms, BoundSql boundSql, Object parameter,
+			String logicTable, List<String> tables) throws Throwable {
+		List<MappedStatement> statements = new ArrayList<MappedStatement>(tables.size());
+		List<RowBounds> bounds = new ArrayList<RowBounds>(tables.size());
+		for (String table : tables) {
+			statements.add(shardStatement(ms, boundSql, logicTable, table));
+			bounds.add(RowBounds.DEFAULT);
+		}
+		List<List<Object>> results = TransactionSynchronizationManager.isSynchronizationActive()
+				? sequentialQuery(executor, statements, parameter, bounds, Executor.NO_RESULT_HANDLER)
+				: parallelQuery(ms.getConfiguration(), statements, parameter, bounds);
+		BigDecimal sum = null;
+		for (List<Object> result : results) {
+			if (!result.isEmpty() && result.get(0) != null) {
+				BigDecimal value = new BigDecimal(result.get(0).toString());
+				sum = sum == null ? value : sum.add(value);
+			}
+		}
+		List<Object> rows = new ArrayList<Object>(1);
+		rows.add(sum == null ? null : toNumber(sum, ms.getResultMaps().get(0).getType()));
+		return rows;
+	}
+
+	private static Object toNumber(BigDecimal value, Class<?> type) {
+		if (type == Integer.class || type == int.class) {
+			return value.intValue();
+		}
+		if (type == Long.class || type == long.class) {
+			return value.longValue();
+		}
+		if (type == Short.class) {
+			return value.shortValue();
+		}
+		if (type == Double.class) {
+			return value.doubleValue();
+		}
+		if (type == Float.class) {
+			return value.floatValue();
+		}
+		if (type == BigInteger.class) {
+			return value.toBigInteger();
+		}
+		return value;
+	}
+
+	/**
+	 * 分表分页：取前 offset + size 条，由 PaginationInterceptor 生成 LIMIT
+	 */
+	private RowBounds shardRowBounds(Pagination page, int offset, int limit) {
+		if (limit == RowBounds.NO_ROW_LIMIT) {
+			return RowBounds.DEFAULT;
+		}
+		Pagination shardPage = new Pagination(1, (int) Math.min(Integer.MAX_VALUE, (long) offset + limit));
+		shardPage.setSearchCount(false);
+		if (page != null) {
+			shardPage.setOrderByField(page.getOrderByField());
+			shardPage.setAsc(page.isAsc());
+		}
+		return shardPage;
+	}
+
+	private List<List<Object>> sequentialQuery(Executor executor, List<MappedStatement> statements, Object parameter,
+			List<RowBounds> bounds, ResultHandler resultHandler) throws Throwable {
+		List<List<Object>> results = new ArrayList<List<Object>>(statements.size());
+		for (int i = 0; i < statements.size(); i++) {
+			MappedStatement statement = statements.get(i);
+			/* COUNT 语句不回调 */
+			ResultHandler handler = statement.getId().endsWith(COUNT_SUFFIX) ? Executor.NO_RESULT_HANDLER : resultHandler;
+			List<Object> result = executor.query(statement, parameter, bounds.get(i), handler);
+			results.add(result == null ? Collections.emptyList() : result);
+		}
+		return results;
+	}
+
+	/**
+	 * 每个分表使用独立连接与 Executor 并行查询
+	 */
+	private List<List<Object>> parallelQuery(final Configuration configuration, List<MappedStatement> statements,
+			final Object parameter, List<RowBounds> bounds) throws Throwable {
+		List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>(statements.size());
+		for (int i = 0; i < statements.size(); i++) {
+			final MappedStatement statement = statements.get(i);
+			final RowBounds rowBounds = bounds.get(i);
+			futures.add(SharedExecutors.submitQuery(new Callable<List<Object>>() {
+				public List<Object> call() throws Exception {
+					Executor executor = configuration.newExecutor(
+							new JdbcTransaction(configuration.getEnvironment().getDataSource(), null, true),
+							ExecutorType.SIMPLE);
+					try {
+						return executor.query(statement, parameter, rowBounds, Executor.NO_RESULT_HANDLER);
+					} finally {
+						executor.close(false);
+					}
+				}
+			}));
+		}
+		List<List<Object>> results = new ArrayList<List<Object>>(futures.size());
+		try {
+			for (Future<List<Object>> future : futures) {
+				results.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			for (Future<List<Object>> future : futures) {
+				future.cancel(true);
+			}
+			throw e.getCause();
+		}
+		return results;
+	}
+
+	/**
+	 * 各分表结果已按 comparator 排序，归并为一个有序列表；无排序时按分表顺序拼接
+	 */
+	static List<Object> merge(final List<List<Object>> results, final Comparator<Object> comparator) {
+		int size = 0;
+		for (List<Object> result : results) {
+			size += result.size();
+		}
+		List<Object> rows = new ArrayList<Object>(size);
+		if (comparator == null) {
+			for (List<Object> result : results) {
+				rows.addAll(result);
+			}
+			return rows;
+		}
+		/* {分表下标, 行下标} */
+		PriorityQueue<int[]> queue = new PriorityQueue<int[]>(Math.max(1, results.size()), new Comparator<int[]>() {
+			public int compare(int[] a, int[] b) {
+				int c = comparator.compare(results.get(a[0]).get(a[1]), results.get(b[0]).get(b[1]));
+				return c != 0 ? c : a[0] - b[0];
+			}
+		});
+		for (int i = 0; i < results.size(); i++) {
+			if (!results.get(i).isEmpty()) {
+				queue.add(new int[] { i, 0 });
+			}
+		}
+		while (!queue.isEmpty()) {
+			int[] head = queue.poll();
+			List<Object> result = results.get(head[0]);
+			rows.add(result.get(head[1]));
+			if (++head[1] < result.size()) {
+				queue.add(head);
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * 按 SQL 末尾 ORDER BY（或分页 orderByField）比较结果行，字段按 TableInfo 映射为属性
+	 */
+	private Comparator<Object> orderComparator(MappedStatement ms, String sql, Pagination page) {
+		String orderBy = null;
+		String upper = sql.toUpperCase();
+		int index = upper.lastIndexOf("ORDER BY");
+		if (index >= 0 && sql.indexOf(')', index) < 0) {
+			orderBy = sql.substring(index + "ORDER BY".length());
+		} else if (page != null && StringUtils.isNotEmpty(page.getOrderByField())) {
+			orderBy = page.getOrderByField() + (page.isAsc() ? " ASC" : " DESC");
+		}
+		if (orderBy == null) {
+			return null;
+		}
+		TableInfo table = getTableInfo(ms);
+		String[] items = orderBy.split(",");
+		final String[] properties = new String[items.length];
+		final boolean[] desc = new boolean[items.length];
+		for (int i = 0; i < items.length; i++) {
+			String[] parts = items[i].trim().split("\\s+");
+			String column = parts[0].substring(parts[0].lastIndexOf('.') + 1).replace("`", "").replace("\"", "");
+			properties[i] = propertyOf(table, column);
+			desc[i] = parts.length > 1 && "DESC".equalsIgnoreCase(parts[1]);
+		}
+		final Configuration configuration = ms.getConfiguration();
+		return new Comparator<Object>() {
+			public int compare(Object a, Object b) {
+				for (int i = 0; i < properties.length; i++) {
+					int c = compareValues(value(configuration, a, properties[i]), value(configuration, b, properties[i]));
+					if (c != 0) {
+						return desc[i] ? -c : c;
+					}
+				}
+				return 0;
+			}
+		};
+	}
+
+	static String propertyOf(TableInfo table, String column) {
+		if (table != null) {
+			if (column.equalsIgnoreCase(table.getKeyColumn())) {
+				return table.getKeyProperty();
+			}
+			for (TableFieldInfo fieldInfo : table.getFieldList()) {
+				if (column.equalsIgnoreCase(fieldInfo.getColumn())) {
+					return fieldInfo.getProperty();
+				}
+			}
+		}
+		/* 别名或属性名 */
+		return column;
+	}
+
+	private static Object value(Configuration configuration, Object row, String property) {
+		if (row == null) {
+			return null;
+		}
+		if (row instanceof Map) {
+			return ((Map<?, ?>) row).get(property);
+		}
+		Reflector reflector = configuration.getReflectorFactory().findForClass(row.getClass());
+		if (!reflector.hasGetter(property)) {
+			return null;
+		}
+		try {
+			return reflector.getGetInvoker(property).invoke(row, null);
+		} catch (Exception e) {
+			throw new MybatisPlusException("Error: Can not read " + property + " of " + row.getClass().getName(), e);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareValues(Object a, Object b) {
+		if (a == b) {
+			return 0;
+		}
+		if (a == null) {
+			return -1;
+		}
+		if (b == null) {
+			return 1;
+		}
+		if (a instanceof Comparable) {
+			return ((Comparable) a).compareTo(b);
+		}
+		return a.toString().compareTo(b.toString());
+	}
+
+	/**
+	 * 分表语句：改写表名，固定 BoundSql
+	 */
+	private MappedStatement shardStatement(MappedStatement ms, BoundSql boundSql, String logicTable, String table) {
+		BoundSql shardBoundSql = copyBoundSql(ms, boundSql, replaceTable(boundSql.getSql(), logicTable, table));
+		return copyMappedStatement(ms, ms.getId() + SHARD_SUFFIX, new BoundSqlSqlSource(shardBoundSql), ms.getResultMaps());
+	}
+
+	/**
+	 * 分表 COUNT 语句
+	 */
+	private MappedStatement countStatement(MappedStatement ms, BoundSql boundSql, String logicTable, String table) {
+		String sql = "SELECT COUNT(1) FROM (" + replaceTable(boundSql.getSql(), logicTable, table) + ") SHARD_T";
+		List<ResultMap> resultMaps = new ArrayList<ResultMap>(1);
+		resultMaps.add(new ResultMap.Builder(ms.getConfiguration(), ms.getId() + COUNT_SUFFIX, Integer.class,
+				new ArrayList<ResultMapping>(0)).build());
+		return copyMappedStatement(ms, ms.getId() + COUNT_SUFFIX, new BoundSqlSqlSource(copyBoundSql(ms, boundSql, sql)),
+				resultMaps);
+	}
+
+	/**
+	 * 替换 SQL 中完整匹配的逻辑表名
+	 */
+	private String replaceTable(String sql, String logicTable, String table) {
+		Pattern pattern = tablePatterns.get(logicTable);
+		if (pattern == null) {
+			pattern = Pattern.compile("(?<![\\w.`\"])" + Pattern.quote(logicTable) + "(?![\\w`\"])");
+			tablePatterns.put(logicTable, pattern);
+		}
+		return pattern.matcher(sql).replaceAll(Matcher.quoteReplacement(table));
+	}
+
+	/**
+	 * 复制 BoundSql，保留 foreach 等动态参数
+	 */
+	@SuppressWarnings("unchecked")
+	private BoundSql copyBoundSql(MappedStatement ms, BoundSql boundSql, String sql) {
+		BoundSql newBoundSql = new BoundSql(ms.getConfiguration(), sql, boundSql.getParameterMappings(),
+				boundSql.getParameterObject());
+		Map<String, Object> additionalParameters = (Map<String, Object>) SystemMetaObject.forObject(boundSql)
+				.getValue("additionalParameters");
+		for (Map.Entry<String, Object> entry : additionalParameters.entrySet()) {
+			newBoundSql.setAdditionalParameter(entry.getKey(), entry.getValue());
+		}
+		return newBoundSql;
+	}
+
+	private MappedStatement copyMappedStatement(MappedStatement ms, String id, SqlSource sqlSource,
+			List<ResultMap> resultMaps) {
+		MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), id, sqlSource,
+				ms.getSqlCommandType());
+		builder.resource(ms.getResource());
+		builder.fetchSize(ms.getFetchSize());
+		builder.statementType(ms.getStatementType());
+		builder.keyGenerator(ms.getKeyGenerator());
+		builder.keyProperty(join(ms.getKeyProperties()));
+		builder.keyColumn(join(ms.getKeyColumns()));
+		builder.resultOrdered(ms.isResultOrdered());
+		builder.resultSets(join(ms.getResultSets()));
+		builder.timeout(ms.getTimeout());
+		builder.parameterMap(ms.getParameterMap());
+		builder.resultMaps(resultMaps);
+		builder.resultSetType(ms.getResultSetType());
+		builder.flushCacheRequired(ms.isFlushCacheRequired());
+		/* 表名不在缓存 KEY 中，不使用二级缓存 */
+		builder.useCache(false);
+		builder.databaseId(ms.getDatabaseId());
+		builder.lang(ms.getLang());
+		return builder.build();
+	}
+
+	private static String join(String[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder(values[0]);
+		for (int i = 1; i < values.length; i++) {
+			sb.append(',').append(values[i]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 固定 BoundSql 的 SqlSource
+	 */
+	private static class BoundSqlSqlSource implements SqlSource {
+
+		private final BoundSql boundSql;
+
+		BoundSqlSqlSource(BoundSql boundSql) {
+			this.boundSql = boundSql;
+		}
+
+		public BoundSql getBoundSql(Object parameterObject) {
+			return boundSql;
+		}
+	}
+
+	private TableInfo getTableInfo(MappedStatement ms) {
+		List<ResultMap> resultMaps = ms.getResultMaps();
+		if (resultMaps == null || resultMaps.isEmpty()) {
+			return null;
+		}
+		return TableInfoHelper.getTableInfo(resultMaps.get(0).getType());
+	}
+
+	/**
+	 * Mapper 接口实体对应的逻辑表名，非 BaseMapper 返回 null
+	 */
+	private String getTableName(MappedStatement ms) {
+		String id = ms.getId();
+		String namespace = id.substring(0, id.lastIndexOf('.'));
+		String table = tableNames.get(namespace);
+		if (table == null) {
+			table = "";
+			try {
+				Class<?> mapperClass = Resources.classForName(namespace);
+				for (Type type : mapperClass.getGenericInterfaces()) {
+					if (type instanceof ParameterizedType && BaseMapper.class.isAssignableFrom(mapperClass)) {
+						Type modelType = ((ParameterizedType) type).getActualTypeArguments()[0];
+						TableInfo tableInfo = modelType instanceof Class ? TableInfoHelper.getTableInfo((Class<?>) modelType) : null;
+						if (tableInfo != null) {
+							table = tableInfo.getTableName();
+						}
+						break;
+					}
+				}
+			} catch (ClassNotFoundException e) {
+				// XML 命名空间不是 Mapper 接口
+			}
+			tableNames.put(namespace, table);
+		}
+		return table.length() == 0 ? null : table;
+	}
+
+	public Object plugin(Object target) {
+		if (target instanceof Executor) {
+			return Plugin.wrap(target, this);
+		}
+		return target;
+	}
+
+	/**
+	 * strategies 格式：逻辑表名:策略实现类,逻辑表名:策略实现类
+	 */
+	public void setProperties(Properties prop) {
+		String strategies = prop.getProperty("strategies");
+		if (StringUtils.isNotEmpty(strategies)) {
+			for (String item : strategies.split(",")) {
+				String[] pair = item.trim().split(":");
+				if (pair.length != 2) {
+					throw new MybatisPlusException("Illegal sharding strategy :" + item);
+				}
+				this.strategies.put(pair[0].trim(), newStrategy(pair[1].trim()));
+			}
+		}
+	}
+
+	private ShardingStrategy newStrategy(String className) {
+		try {
+			Class<?> clazz = Class.forName(className);
+			if (ShardingStrategy.class.isAssignableFrom(clazz)) {
+				return (ShardingStrategy) clazz.newInstance();
+			}
+		} catch (Exception e) {
+			throw new MybatisPlusException("ShardingStrategy :" + className + " can not be instantiated");
+		}
+		throw new MybatisPlusException("Class :" + className + " is not a ShardingStrategy");
+	}
+
+	public void setStrategies(Map<String, ShardingStrategy> strategies) {
+		this.strategies = new HashMap<String, ShardingStrategy>(strategies);
+	}
+
+}
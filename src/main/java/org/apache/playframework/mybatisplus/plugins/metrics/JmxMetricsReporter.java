@@ -0,0 +1,107 @@
+package org.apache.playframework.mybatisplus.plugins.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+
+/**
+ * <p>
+ * 通过 JMX MBean 暴露最近一个统计周期的 SQL 执行指标
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class JmxMetricsReporter implements MetricsReporter, JmxMetricsReporterMBean {
+
+	public static final String DEFAULT_OBJECT_NAME = "org.apache.playframework:type=SqlMetrics";
+
+	private final ObjectName objectName;
+
+	/* 语句 ID - 最近周期指标 */
+	private volatile Map<String, StatementMetrics> latest = Collections.emptyMap();
+
+	public JmxMetricsReporter() {
+		this(DEFAULT_OBJECT_NAME);
+	}
+
+	public JmxMetricsReporter(String objectName) {
+		try {
+			this.objectName = new ObjectName(objectName);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(this.objectName)) {
+				server.unregisterMBean(this.objectName);
+			}
+			server.registerMBean(this, this.objectName);
+		} catch (Exception e) {
+			throw new MybatisPlusException("Error: Can not register MBean " + objectName, e);
+		}
+	}
+
+	public void report(Collection<StatementMetrics> metrics) {
+		Map<String, StatementMetrics> map = new HashMap<String, StatementMetrics>(metrics.size() * 2);
+		for (StatementMetrics statementMetrics : metrics) {
+			map.put(statementMetrics.getId(), statementMetrics);
+		}
+		latest = map;
+	}
+
+	/**
+	 * 注销 MBean
+	 */
+	public void unregister() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (Exception e) {
+			// ignore
+		}
+	}
+
+	public String[] getStatements() {
+		Map<String, StatementMetrics> sorted = new TreeMap<String, StatementMetrics>(latest);
+		String[] statements = new String[sorted.size()];
+		int i = 0;
+		for (StatementMetrics metrics : sorted.values()) {
+			statements[i++] = metrics.toString();
+		}
+		return statements;
+	}
+
+	public long getCalls(String id) {
+		StatementMetrics metrics = latest.get(id);
+		return metrics == null ? 0 : metrics.getLatency().getCount();
+	}
+
+	public long getP50Micros(String id) {
+		StatementMetrics metrics = latest.get(id);
+		return metrics == null ? 0 : metrics.getLatency().percentile(0.5);
+	}
+
+	public long getP99Micros(String id) {
+		StatementMetrics metrics = latest.get(id);
+		return metrics == null ? 0 : metrics.getLatency().percentile(0.99);
+	}
+
+	public long getMaxMicros(String id) {
+		StatementMetrics metrics = latest.get(id);
+		return metrics == null ? 0 : metrics.getLatency().getMax();
+	}
+
+	public long getCountP99Micros(String id) {
+		StatementMetrics metrics = latest.get(id);
+		return metrics == null || metrics.getCount() == null ? 0 : metrics.getCount().percentile(0.99);
+	}
+
+	public long getPrepareWaitP99Micros(String id) {
+		StatementMetrics metrics = latest.get(id);
+		return metrics == null || metrics.getPrepareWait() == null ? 0 : metrics.getPrepareWait().percentile(0.99);
+	}
+
+}
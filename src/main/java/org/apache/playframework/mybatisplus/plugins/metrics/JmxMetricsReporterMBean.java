@@ -0,0 +1,29 @@
+package org.apache.playframework.mybatisplus.plugins.metrics;
+
+/**
+ * <p>
+ * SQL 执行指标 JMX 接口，数值为最近一个统计周期，单位微秒
+ * </p>
+ *
+ * @author willenfoo
+ */
+public interface JmxMetricsReporterMBean {
+
+	/**
+	 * 最近一个周期各语句指标摘要
+	 */
+	String[] getStatements();
+
+	long getCalls(String id);
+
+	long getP50Micros(String id);
+
+	long getP99Micros(String id);
+
+	long getMaxMicros(String id);
+
+	long getCountP99Micros(String id);
+
+	long getPrepareWaitP99Micros(String id);
+
+}
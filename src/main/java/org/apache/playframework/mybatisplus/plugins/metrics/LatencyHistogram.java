@@ -0,0 +1,107 @@
+package org.apache.playframework.mybatisplus.plugins.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * 无锁对数线性直方图
+ * </p>
+ * <p>
+ * 与 HdrHistogram 相同的分桶方式：每个 2 的幂区间再等分 16 个子桶，相对误差不超过 1/16；
+ * 小于 32 的值精确记录。记录只做一次数组原子自增与一次最大值 CAS，不加锁不分配对象。
+ * 单位由调用方决定，MetricsInterceptor 使用微秒，最大约 2^36（超出记入最后一个桶，最大值仍精确）。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 4;
+
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	private static final int MAX_SHIFT = 32;
+
+	private static final int BUCKETS = MAX_SHIFT * SUB_COUNT + 2 * SUB_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sum = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * 记录一个值，负数按 0 记录
+	 */
+	public void record(long value) {
+		long v = value < 0 ? 0 : value;
+		counts.incrementAndGet(index(v));
+		count.incrementAndGet();
+		sum.addAndGet(v);
+		long current = max.get();
+		while (v > current && !max.compareAndSet(current, v)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * 分位值
+	 *
+	 * @param quantile
+	 *            0 ~ 1，如 0.99
+	 * @return 分位值所在桶的上界，不超过最大值；没有记录时返回 0
+	 */
+	public long percentile(double quantile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getSum() {
+		return sum.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long total = count.get();
+		return total == 0 ? 0 : (double) sum.get() / total;
+	}
+
+	private static int index(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+		if (shift > MAX_SHIFT) {
+			return BUCKETS - 1;
+		}
+		return (shift << SUB_BITS) + (int) (value >>> shift);
+	}
+
+	private static long upperBound(int index) {
+		if (index < 2 * SUB_COUNT) {
+			return index;
+		}
+		int shift = (index >>> SUB_BITS) - 1;
+		long sub = index - (shift << SUB_BITS);
+		return ((sub + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.apache.playframework.mybatisplus.plugins.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.playframework.log.Logger;
+import org.apache.playframework.log.LoggerFactory;
+
+/**
+ * <p>
+ * 日志输出 SQL 执行指标，按 p99 倒序
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class LogMetricsReporter implements MetricsReporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(LogMetricsReporter.class);
+
+	/* 每个周期最多输出语句数 */
+	private int limit = 20;
+
+	public void report(Collection<StatementMetrics> metrics) {
+		if (metrics.isEmpty() || !logger.isInfoEnabled()) {
+			return;
+		}
+		List<StatementMetrics> list = new ArrayList<StatementMetrics>(metrics);
+		Collections.sort(list, new Comparator<StatementMetrics>() {
+			public int compare(StatementMetrics a, StatementMetrics b) {
+				return Long.compare(b.getLatency().percentile(0.99), a.getLatency().percentile(0.99));
+			}
+		});
+		StringBuilder sb = new StringBuilder("SQL metrics:");
+		for (int i = 0; i < list.size() && i < limit; i++) {
+			sb.append("\n  ").append(list.get(i));
+		}
+		logger.info(sb.toString());
+	}
+
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+}
@@ -0,0 +1,25 @@
+package org.apache.playframework.mybatisplus.plugins.metrics;
+
+import java.util.Collection;
+
+/**
+ * <p>
+ * SQL 执行指标输出
+ * </p>
+ * <p>
+ * MetricsInterceptor 每个统计周期结束时调用，传入该周期有执行记录的语句指标，实现不应长时间阻塞。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public interface MetricsReporter {
+
+	/**
+	 * 输出一个统计周期的指标
+	 *
+	 * @param metrics
+	 *            语句指标，周期结束后不再变化
+	 */
+	void report(Collection<StatementMetrics> metrics);
+
+}
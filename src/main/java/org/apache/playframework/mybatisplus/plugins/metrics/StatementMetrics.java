@@ -0,0 +1,133 @@
+package org.apache.playframework.mybatisplus.plugins.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 单个 MappedStatement 的执行指标（一个统计周期）
+ * </p>
+ * <p>
+ * 延迟单位为微秒：latency 为数据查询或更新耗时，count 为分页 COUNT 查询耗时，
+ * prepareWait 为进入 Executor 到 StatementHandler.prepare 的耗时，包括一级缓存查找、生成 SQL 与获取连接，
+ * 不单独代表连接池等待。COUNT 与 prepareWait 直方图在第一次记录时创建，没有分页或命中一级缓存的语句不占用内存。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class StatementMetrics {
+
+	private final String id;
+
+	private final long startMillis;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	private volatile LatencyHistogram count;
+
+	private volatile LatencyHistogram prepareWait;
+
+	/* 查询返回行数或更新影响行数 */
+	private final AtomicLong rows = new AtomicLong();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	public StatementMetrics(String id) {
+		this.id = id;
+		this.startMillis = System.currentTimeMillis();
+	}
+
+	public void recordLatency(long micros, int rows) {
+		latency.record(micros);
+		if (rows > 0) {
+			this.rows.addAndGet(rows);
+		}
+	}
+
+	public void recordCount(long micros) {
+		LatencyHistogram histogram = count;
+		if (histogram == null) {
+			synchronized (this) {
+				if (count == null) {
+					count = new LatencyHistogram();
+				}
+				histogram = count;
+			}
+		}
+		histogram.record(micros);
+	}
+
+	public void recordPrepareWait(long micros) {
+		LatencyHistogram histogram = prepareWait;
+		if (histogram == null) {
+			synchronized (this) {
+				if (prepareWait == null) {
+					prepareWait = new LatencyHistogram();
+				}
+				histogram = prepareWait;
+			}
+		}
+		histogram.record(micros);
+	}
+
+	public void recordError() {
+		errors.incrementAndGet();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * 统计周期开始时间
+	 */
+	public long getStartMillis() {
+		return startMillis;
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * COUNT 查询耗时，没有时为 null
+	 */
+	public LatencyHistogram getCount() {
+		return count;
+	}
+
+	/**
+	 * 进入 Executor 到 StatementHandler.prepare 的耗时，没有时为 null
+	 */
+	public LatencyHistogram getPrepareWait() {
+		return prepareWait;
+	}
+
+	public long getRows() {
+		return rows.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(id);
+		sb.append(" calls=").append(latency.getCount());
+		sb.append(" p50=").append(latency.percentile(0.5)).append("us");
+		sb.append(" p99=").append(latency.percentile(0.99)).append("us");
+		sb.append(" max=").append(latency.getMax()).append("us");
+		sb.append(" rows=").append(rows.get());
+		sb.append(" errors=").append(errors.get());
+		if (count != null) {
+			sb.append(" count.p50=").append(count.percentile(0.5)).append("us");
+			sb.append(" count.p99=").append(count.percentile(0.99)).append("us");
+		}
+		if (prepareWait != null) {
+			sb.append(" prepareWait.p99=").append(prepareWait.percentile(0.99)).append("us");
+			sb.append(" prepareWait.max=").append(prepareWait.getMax()).append("us");
+		}
+		return sb.toString();
+	}
+
+}
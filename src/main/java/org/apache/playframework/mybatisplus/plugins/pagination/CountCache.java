@@ -0,0 +1,191 @@
+package org.apache.playframework.mybatisplus.plugins.pagination;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 分页 COUNT 结果缓存
+ * </p>
+ * <p>
+ * KEY 为 (COUNT SQL, 绑定参数值)，带过期时间与最大条数。每张表维护一个版本号，
+ * 表有 insert/update/delete 时版本号递增，旧版本的缓存自动失效。
+ * 达到最大条数时先清除过期与旧版本的缓存，仍然已满时淘汰最近最少使用的缓存。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class CountCache {
+
+	private final long ttlMillis;
+
+	private final int maxSize;
+
+	/* 按最近使用淘汰，访问需同步 */
+	private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+
+	/**
+	 * @param ttlSeconds
+	 *            过期时间（秒）
+	 * @param maxSize
+	 *            最大缓存条数
+	 */
+	public CountCache(int ttlSeconds, int maxSize) {
+		this.ttlMillis = ttlSeconds * 1000L;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * 当前表版本号，执行 COUNT 前获取，写入缓存时使用
+	 */
+	public long version(String table) {
+		return versionOf(table).get();
+	}
+
+	/**
+	 * 获取缓存总数，不存在或已失效返回 null
+	 */
+	public Integer get(String table, String sql, List<Object> parameters) {
+		Key key = new Key(table, sql, parameters);
+		long version = version(table);
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expireTime < System.currentTimeMillis() || entry.version != version) {
+				entries.remove(key);
+				return null;
+			}
+			return entry.total;
+		}
+	}
+
+	/**
+	 * 写入缓存
+	 *
+	 * @param version
+	 *            执行 COUNT 前获取的表版本号，期间表有更新则不会命中
+	 */
+	public void put(String table, String sql, List<Object> parameters, long version, int total) {
+		Key key = new Key(table, sql, parameters);
+		Entry entry = new Entry(total, version, System.currentTimeMillis() + ttlMillis);
+		synchronized (entries) {
+			if (entries.size() >= maxSize && !entries.containsKey(key)) {
+				evictStale();
+			}
+			entries.put(key, entry);
+		}
+	}
+
+	/**
+	 * 表数据变更，失效该表所有 COUNT 缓存
+	 */
+	public void invalidate(String table) {
+		versionOf(table).incrementAndGet();
+	}
+
+	/**
+	 * 失效所有 COUNT 缓存
+	 */
+	public void clear() {
+		for (AtomicLong version : versions.values()) {
+			version.incrementAndGet();
+		}
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	private AtomicLong versionOf(String table) {
+		AtomicLong version = versions.get(table);
+		if (version == null) {
+			AtomicLong created = new AtomicLong();
+			version = versions.putIfAbsent(table, created);
+			if (version == null) {
+				version = created;
+			}
+		}
+		return version;
+	}
+
+	/**
+	 * 清除过期与表版本已变化的缓存，调用方持有 entries 锁
+	 */
+	private void evictStale() {
+		long now = System.currentTimeMillis();
+		Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Key, Entry> next = iterator.next();
+			Entry entry = next.getValue();
+			if (entry.expireTime < now || entry.version != version(next.getKey().table)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private static class Key {
+
+		private final String table;
+
+		private final String sql;
+
+		private final List<Object> parameters;
+
+		private final int hash;
+
+		Key(String table, String sql, List<Object> parameters) {
+			this.table = table;
+			this.sql = sql;
+			this.parameters = parameters;
+			this.hash = (table.hashCode() * 31 + sql.hashCode()) * 31 + parameters.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && table.equals(other.table) && sql.equals(other.sql)
+					&& parameters.equals(other.parameters);
+		}
+	}
+
+	private static class Entry {
+
+		private final int total;
+
+		private final long version;
+
+		private final long expireTime;
+
+		Entry(int total, long version, long expireTime) {
+			this.total = total;
+			this.version = version;
+			this.expireTime = expireTime;
+		}
+	}
+
+}
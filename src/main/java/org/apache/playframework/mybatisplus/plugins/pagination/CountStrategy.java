@@ -0,0 +1,37 @@
+package org.apache.playframework.mybatisplus.plugins.pagination;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * <p>
+ * COUNT 估算策略
+ * </p>
+ * <p>
+ * 超大表精确 COUNT 很慢，列表页只需要大概总数。估算值超过阈值时以估算值作为总记录数，否则执行精确 COUNT。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public interface CountStrategy {
+
+	/**
+	 * 估算总记录数
+	 *
+	 * @param connection
+	 *            当前连接
+	 * @param table
+	 *            Mapper 对应表名，未知为 null
+	 * @param countSql
+	 *            COUNT SQL
+	 * @param mappedStatement
+	 * @param boundSql
+	 * @return 估算总记录数，无法估算返回 -1
+	 */
+	long estimate(Connection connection, String table, String countSql, MappedStatement mappedStatement, BoundSql boundSql)
+			throws SQLException;
+
+}
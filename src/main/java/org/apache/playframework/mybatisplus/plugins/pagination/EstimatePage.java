@@ -0,0 +1,37 @@
+package org.apache.playframework.mybatisplus.plugins.pagination;
+
+import com.baomidou.mybatisplus.plugins.Page;
+
+/**
+ * <p>
+ * 允许估算总记录数的分页
+ * </p>
+ * <p>
+ * PaginationInterceptor 配置了 CountStrategy 时，估算值超过阈值则 total 为估算值，isTotalEstimated() 返回 true。
+ * </p>
+ *
+ * @author willenfoo
+ */
+@SuppressWarnings("serial")
+public class EstimatePage<T> extends Page<T> {
+
+	/* 总记录数是否为估算值 */
+	private boolean totalEstimated;
+
+	public EstimatePage(int current, int size) {
+		super(current, size);
+	}
+
+	public EstimatePage(int current, int size, String orderByField) {
+		super(current, size, orderByField);
+	}
+
+	public boolean isTotalEstimated() {
+		return totalEstimated;
+	}
+
+	public void setTotalEstimated(boolean totalEstimated) {
+		this.totalEstimated = totalEstimated;
+	}
+
+}
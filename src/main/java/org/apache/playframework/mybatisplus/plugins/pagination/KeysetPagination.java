@@ -0,0 +1,114 @@
+package org.apache.playframework.mybatisplus.plugins.pagination;
+
+import com.baomidou.mybatisplus.plugins.pagination.Pagination;
+
+/**
+ * <p>
+ * 游标（keyset）分页
+ * </p>
+ * <p>
+ * 不使用 OFFSET，按上一页最后一行的排序字段值定位下一页：WHERE (sort_cols) &gt; (?, ...) ORDER BY sort_cols LIMIT n，
+ * 深度翻页不再线性变慢。未指定排序字段时使用主键，排序字段不含主键时追加主键作为最后一个排序字段，
+ * 游标值（lastKeys / nextKeys）包含追加的主键值。
+ * </p>
+ *
+ * <pre>
+ * KeysetPagination page = new KeysetPagination(20);
+ * List&lt;User&gt; rows = userMapper.selectPage(page, wrapper);
+ * page = page.next(); // 下一页，携带 page.getNextKeys()
+ * </pre>
+ *
+ * @author willenfoo
+ */
+@SuppressWarnings("serial")
+public class KeysetPagination extends Pagination {
+
+	/* 排序字段（SQL 列名，需有索引；为查询字段别名时包装为子查询执行），为空时使用主键 */
+	private String[] sortColumns;
+
+	/* 排序字段对应的结果属性，用于读取下一页游标，为空时按实体字段映射解析 */
+	private String[] sortProperties;
+
+	/* 上一页最后一行的排序字段值，为空表示第一页 */
+	private Object[] lastKeys;
+
+	/* 本页最后一行的排序字段值 */
+	private Object[] nextKeys;
+
+	/* 是否还有下一页 */
+	private boolean hasNext;
+
+	public KeysetPagination(int size) {
+		super(1, size);
+		/* 游标分页一般不需要总数 */
+		setSearchCount(false);
+	}
+
+	/**
+	 * @param size
+	 *            每页条数
+	 * @param sortColumns
+	 *            排序字段（SQL 列名，为查询字段别名时包装为子查询执行）
+	 * @param sortProperties
+	 *            排序字段对应的结果属性
+	 * @param lastKeys
+	 *            上一页游标
+	 */
+	public KeysetPagination(int size, String[] sortColumns, String[] sortProperties, Object[] lastKeys) {
+		this(size);
+		this.sortColumns = sortColumns;
+		this.sortProperties = sortProperties;
+		this.lastKeys = lastKeys;
+	}
+
+	/**
+	 * 下一页分页条件
+	 */
+	public KeysetPagination next() {
+		KeysetPagination next = new KeysetPagination(getSize(), sortColumns, sortProperties, nextKeys);
+		next.setAsc(isAsc());
+		next.setSearchCount(isSearchCount());
+		return next;
+	}
+
+	public String[] getSortColumns() {
+		return sortColumns;
+	}
+
+	public void setSortColumns(String[] sortColumns) {
+		this.sortColumns = sortColumns;
+	}
+
+	public String[] getSortProperties() {
+		return sortProperties;
+	}
+
+	public void setSortProperties(String[] sortProperties) {
+		this.sortProperties = sortProperties;
+	}
+
+	public Object[] getLastKeys() {
+		return lastKeys;
+	}
+
+	public void setLastKeys(Object[] lastKeys) {
+		this.lastKeys = lastKeys;
+	}
+
+	public Object[] getNextKeys() {
+		return nextKeys;
+	}
+
+	public void setNextKeys(Object[] nextKeys) {
+		this.nextKeys = nextKeys;
+	}
+
+	public boolean isHasNext() {
+		return hasNext;
+	}
+
+	public void setHasNext(boolean hasNext) {
+		this.hasNext = hasNext;
+	}
+
+}
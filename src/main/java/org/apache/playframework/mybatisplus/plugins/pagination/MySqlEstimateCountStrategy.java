@@ -0,0 +1,62 @@
+package org.apache.playframework.mybatisplus.plugins.pagination;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.playframework.mybatisplus.toolkit.SqlNormalizer;
+
+import com.baomidou.mybatisplus.MybatisDefaultParameterHandler;
+import com.baomidou.mybatisplus.toolkit.IOUtils;
+
+/**
+ * <p>
+ * MySQL COUNT 估算
+ * </p>
+ * <p>
+ * 单表无条件时取 information_schema.TABLES.TABLE_ROWS；有条件、关联、分组、去重或 UNION 时表统计信息不能代表结果行数，
+ * 取 EXPLAIN 的 rows 估算值。关键字在删除注释、合并空白后按单词匹配，换行、制表符分隔的 WHERE 同样识别。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class MySqlEstimateCountStrategy implements CountStrategy {
+
+	private static final String TABLE_ROWS_SQL = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+	/* 结果行数不等于表行数的关键字 */
+	private static final Pattern NOT_TABLE_ROWS = Pattern.compile(
+			"\\b(WHERE|JOIN|GROUP BY|HAVING|DISTINCT|UNION)\\b", Pattern.CASE_INSENSITIVE);
+
+	@Override
+	public long estimate(Connection connection, String table, String countSql, MappedStatement mappedStatement,
+			BoundSql boundSql) throws SQLException {
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		boolean tableRows = table != null && boundSql.getParameterMappings().isEmpty()
+				&& !NOT_TABLE_ROWS.matcher(SqlNormalizer.normalize(countSql)).find();
+		try {
+			if (tableRows) {
+				/* 无条件，使用表统计信息 */
+				pstmt = connection.prepareStatement(TABLE_ROWS_SQL);
+				pstmt.setString(1, table);
+			} else {
+				pstmt = connection.prepareStatement("EXPLAIN " + countSql);
+				new MybatisDefaultParameterHandler(mappedStatement, boundSql.getParameterObject(), boundSql)
+						.setParameters(pstmt);
+			}
+			rs = pstmt.executeQuery();
+			if (rs.next()) {
+				return tableRows ? rs.getLong(1) : rs.getLong("rows");
+			}
+			return -1;
+		} finally {
+			IOUtils.closeQuietly(pstmt, rs);
+		}
+	}
+
+}
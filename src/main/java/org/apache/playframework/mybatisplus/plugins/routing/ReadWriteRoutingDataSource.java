@@ -0,0 +1,144 @@
+package org.apache.playframework.mybatisplus.plugins.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * <p>
+ * 读写分离数据源
+ * </p>
+ * <p>
+ * 默认使用主库；当前线程标记为读库时按权重随机选择一个从库。标记由 ReadWriteRoutingInterceptor 在执行语句前设置，
+ * 连接在语句执行时获取，因此按语句路由；Spring 事务内的连接在事务开始时获取，始终为主库。
+ * </p>
+ *
+ * <pre>
+ * &lt;bean id="dataSource" class="org.apache.playframework.mybatisplus.plugins.routing.ReadWriteRoutingDataSource"&gt;
+ *     &lt;property name="primary" ref="primaryDataSource" /&gt;
+ *     &lt;property name="replicas"&gt;&lt;list&gt;&lt;ref bean="replica1" /&gt;&lt;ref bean="replica2" /&gt;&lt;/list&gt;&lt;/property&gt;
+ *     &lt;property name="weights"&gt;&lt;list&gt;&lt;value&gt;2&lt;/value&gt;&lt;value&gt;1&lt;/value&gt;&lt;/list&gt;&lt;/property&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author willenfoo
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+	private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<Boolean>();
+
+	private DataSource primary;
+
+	private DataSource[] replicas = new DataSource[0];
+
+	/* 从库累计权重，与 replicas 一一对应 */
+	private int[] cumulativeWeights = new int[0];
+
+	/**
+	 * 设置当前线程是否使用从库
+	 *
+	 * @param replica
+	 *            true 从库，false 或 null 主库
+	 * @return 设置前的值，执行完成后用于恢复
+	 */
+	public static Boolean setReplica(Boolean replica) {
+		Boolean previous = REPLICA.get();
+		if (replica == null) {
+			REPLICA.remove();
+		} else {
+			REPLICA.set(replica);
+		}
+		return previous;
+	}
+
+	public static boolean isReplica() {
+		return Boolean.TRUE.equals(REPLICA.get());
+	}
+
+	/**
+	 * 当前线程应使用的数据源
+	 */
+	protected DataSource determineDataSource() {
+		if (replicas.length == 0 || !isReplica()) {
+			return primary;
+		}
+		if (replicas.length == 1) {
+			return replicas[0];
+		}
+		int total = cumulativeWeights[cumulativeWeights.length - 1];
+		int random = ThreadLocalRandom.current().nextInt(total);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (random < cumulativeWeights[i]) {
+				return replicas[i];
+			}
+		}
+		return replicas[replicas.length - 1];
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return determineDataSource().getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return determineDataSource().getConnection(username, password);
+	}
+
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	public void setPrimary(DataSource primary) {
+		this.primary = primary;
+	}
+
+	/**
+	 * 从库，未设置权重时权重相同
+	 */
+	public void setReplicas(List<DataSource> replicas) {
+		this.replicas = replicas.toArray(new DataSource[replicas.size()]);
+		int[] weights = new int[this.replicas.length];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = 1;
+		}
+		this.cumulativeWeights = cumulative(weights);
+	}
+
+	/**
+	 * 从库权重，需在 replicas 之后设置，权重为 0 的从库不参与读
+	 */
+	public void setWeights(List<Integer> weights) {
+		if (weights.size() != replicas.length) {
+			throw new IllegalArgumentException("Error: weights size must equal replicas size");
+		}
+		int[] values = new int[weights.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = weights.get(i);
+			if (values[i] < 0) {
+				throw new IllegalArgumentException("Error: weight must not be negative");
+			}
+		}
+		int[] cumulative = cumulative(values);
+		if (cumulative.length > 0 && cumulative[cumulative.length - 1] == 0) {
+			throw new IllegalArgumentException("Error: weights must not all be zero");
+		}
+		this.cumulativeWeights = cumulative;
+	}
+
+	private static int[] cumulative(int[] weights) {
+		int[] cumulative = new int[weights.length];
+		int sum = 0;
+		for (int i = 0; i < weights.length; i++) {
+			sum += weights[i];
+			cumulative[i] = sum;
+		}
+		return cumulative;
+	}
+
+}
@@ -0,0 +1,115 @@
+package org.apache.playframework.mybatisplus.plugins.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.playframework.mybatisplus.mapper.EntityWrapper;
+
+/**
+ * <p>
+ * 按实体属性分表
+ * </p>
+ * <p>
+ * 依次从实体、et、ew.entity、cm（列名）、list 中的实体读取分片属性，子类把属性值映射为物理表，
+ * 如按月份 t_order_201701、按租户 t_order_tenant1。读取不到分片值时返回全部分表。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public abstract class PropertyShardingStrategy implements ShardingStrategy {
+
+	/* 分片属性 */
+	private final String property;
+
+	/* 分片字段，用于 selectByMap / deleteByMap */
+	private final String column;
+
+	public PropertyShardingStrategy(String property, String column) {
+		this.property = property;
+		this.column = column;
+	}
+
+	/**
+	 * 分片值对应的物理表
+	 */
+	protected abstract String table(String logicTable, Object value);
+
+	/**
+	 * 全部物理表
+	 */
+	protected abstract List<String> allTables(String logicTable);
+
+	public List<String> resolve(String logicTable, Object parameterObject) {
+		Set<Object> values = new LinkedHashSet<Object>();
+		if (!collect(parameterObject, values) || values.isEmpty()) {
+			return allTables(logicTable);
+		}
+		Set<String> tables = new LinkedHashSet<String>();
+		for (Object value : values) {
+			tables.add(table(logicTable, value));
+		}
+		return new ArrayList<String>(tables);
+	}
+
+	/**
+	 * 读取分片值
+	 *
+	 * @return 存在没有分片值的实体时返回 false
+	 */
+	private boolean collect(Object parameterObject, Set<Object> values) {
+		if (parameterObject == null) {
+			return false;
+		}
+		if (parameterObject instanceof Map) {
+			Map<?, ?> param = (Map<?, ?>) parameterObject;
+			Object ew = param.containsKey("ew") ? param.get("ew") : null;
+			if (ew instanceof EntityWrapper && collect(((EntityWrapper<?>) ew).getEntity(), values)) {
+				return true;
+			}
+			Object et = param.containsKey("et") ? param.get("et") : null;
+			if (et != null && collect(et, values)) {
+				return true;
+			}
+			Object cm = param.containsKey("cm") ? param.get("cm") : null;
+			if (cm instanceof Map && ((Map<?, ?>) cm).get(column) != null) {
+				values.add(((Map<?, ?>) cm).get(column));
+				return true;
+			}
+			Object list = param.containsKey("list") ? param.get("list") : null;
+			if (list instanceof Collection) {
+				for (Object item : (Collection<?>) list) {
+					if (!collect(item, values)) {
+						return false;
+					}
+				}
+				return !((Collection<?>) list).isEmpty();
+			}
+			return false;
+		}
+		MetaObject metaObject = SystemMetaObject.forObject(parameterObject);
+		if (!metaObject.hasGetter(property)) {
+			return false;
+		}
+		Object value = metaObject.getValue(property);
+		if (value == null) {
+			return false;
+		}
+		values.add(value);
+		return true;
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	public String getColumn() {
+		return column;
+	}
+
+}
@@ -0,0 +1,28 @@
+package org.apache.playframework.mybatisplus.plugins.sharding;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 分表策略
+ * </p>
+ * <p>
+ * ShardingInterceptor 按语句参数解析物理表：单个表时改写表名后执行，多个表时并行查询并合并结果。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public interface ShardingStrategy {
+
+	/**
+	 * 解析物理表
+	 *
+	 * @param logicTable
+	 *            逻辑表名（TableInfo 表名）
+	 * @param parameterObject
+	 *            语句参数：实体、主键，或包含 et、ew、cm、list 的 Map
+	 * @return 物理表名，不能为空；无法确定分片键时返回全部分表
+	 */
+	List<String> resolve(String logicTable, Object parameterObject);
+
+}
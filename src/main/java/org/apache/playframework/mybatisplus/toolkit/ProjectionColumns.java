@@ -0,0 +1,119 @@
+package org.apache.playframework.mybatisplus.toolkit;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.baomidou.mybatisplus.entity.TableFieldInfo;
+import com.baomidou.mybatisplus.entity.TableInfo;
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+import com.baomidou.mybatisplus.toolkit.TableInfoHelper;
+
+/**
+ * <p>
+ * 投影查询字段
+ * </p>
+ * <p>
+ * 按 TableInfo 将实体属性名解析为 SELECT 字段列表（列名与属性名不一致时带 AS 别名），
+ * 结果可直接按属性名自动映射到实体或 DTO，用于列表查询时跳过大字段。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class ProjectionColumns {
+
+	/* 实体类#DTO 类 - 字段列表 */
+	private static final Map<String, String> PROJECTIONS = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * 指定属性的查询字段
+	 *
+	 * @param entityClass
+	 *            实体类
+	 * @param properties
+	 *            实体属性名
+	 * @return 如 id,user_name AS userName
+	 */
+	public static String sqlSelect(Class<?> entityClass, String... properties) {
+		TableInfo table = tableInfo(entityClass);
+		StringBuilder columns = new StringBuilder();
+		for (String property : properties) {
+			String column = column(table, property);
+			if (null == column) {
+				throw new MybatisPlusException(String.format("Error: %s has no column for property %s.",
+						entityClass.getName(), property));
+			}
+			if (columns.length() > 0) {
+				columns.append(",");
+			}
+			columns.append(column);
+		}
+		return columns.toString();
+	}
+
+	/**
+	 * DTO 可写属性中属于实体表字段的查询字段，按类缓存
+	 *
+	 * @param entityClass
+	 *            实体类
+	 * @param projectionClass
+	 *            DTO 类
+	 */
+	public static String sqlSelect(Class<?> entityClass, Class<?> projectionClass) {
+		String key = entityClass.getName() + "#" + projectionClass.getName();
+		String sqlSelect = PROJECTIONS.get(key);
+		if (null == sqlSelect) {
+			TableInfo table = tableInfo(entityClass);
+			List<String> properties = new ArrayList<String>();
+			try {
+				for (PropertyDescriptor descriptor : Introspector.getBeanInfo(projectionClass).getPropertyDescriptors()) {
+					if (null != descriptor.getWriteMethod() && null != column(table, descriptor.getName())) {
+						properties.add(descriptor.getName());
+					}
+				}
+			} catch (Exception e) {
+				throw new MybatisPlusException("Error: Can not resolve properties of " + projectionClass.getName(), e);
+			}
+			if (properties.isEmpty()) {
+				throw new MybatisPlusException(String.format("Error: %s has no property mapped to table %s.",
+						projectionClass.getName(), table.getTableName()));
+			}
+			sqlSelect = sqlSelect(entityClass, properties.toArray(new String[properties.size()]));
+			PROJECTIONS.put(key, sqlSelect);
+		}
+		return sqlSelect;
+	}
+
+	/**
+	 * 属性对应的查询字段，与 AutoSqlInjector.sqlSelectColumns 一致，非表字段返回 null
+	 */
+	private static String column(TableInfo table, String property) {
+		if (property.equals(table.getKeyProperty())) {
+			if (table.isKeyRelated()) {
+				return table.getKeyColumn() + " AS " + property;
+			}
+			return table.getKeyColumn();
+		}
+		for (TableFieldInfo fieldInfo : table.getFieldList()) {
+			if (property.equals(fieldInfo.getProperty())) {
+				if (fieldInfo.isRelated()) {
+					return fieldInfo.getColumn() + " AS " + property;
+				}
+				return fieldInfo.getColumn();
+			}
+		}
+		return null;
+	}
+
+	private static TableInfo tableInfo(Class<?> entityClass) {
+		TableInfo table = TableInfoHelper.getTableInfo(entityClass);
+		if (null == table) {
+			throw new MybatisPlusException("Error: Not found TableInfo of " + entityClass.getName());
+		}
+		return table;
+	}
+
+}
@@ -0,0 +1,122 @@
+package org.apache.playframework.mybatisplus.toolkit;
+
+/**
+ * <p>
+ * SQL 格式化：删除注释，合并空白字符
+ * </p>
+ * <p>
+ * 单次扫描，删除 \/*...*\/ 多行注释与以 -- 开始的单行注释（防止 SQL 注入），换行、制表符等连续空白合并为一个空格，
+ * 引号内的内容原样保留。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class SqlNormalizer {
+
+	/**
+	 * 格式化 SQL
+	 *
+	 * @param sql
+	 * @return 删除注释并合并空白后的 SQL
+	 */
+	public static String normalize(String sql) {
+		int length = sql.length();
+		StringBuilder sb = new StringBuilder(length);
+		/* 是否有待输出的空白 */
+		boolean space = false;
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				/* 单行注释，保留换行作为空白 */
+				i += 2;
+				while (i < length && sql.charAt(i) != '\n' && sql.charAt(i) != '\r') {
+					i++;
+				}
+				space = true;
+			} else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				/* 多行注释，视为空白 */
+				int end = sql.indexOf("*/", i + 2);
+				i = end < 0 ? length : end + 2;
+				space = true;
+			} else if (Character.isWhitespace(c)) {
+				i++;
+				space = true;
+			} else if (c == '\'' || c == '"' || c == '`') {
+				appendSpace(sb, space);
+				space = false;
+				i = appendQuoted(sql, i, c, sb);
+			} else {
+				appendSpace(sb, space);
+				space = false;
+				sb.append(c);
+				i++;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 原样输出引号内内容，支持 '' 与 \' 转义
+	 *
+	 * @return 引号结束后的位置
+	 */
+	private static int appendQuoted(String sql, int start, char quote, StringBuilder sb) {
+		int length = sql.length();
+		sb.append(quote);
+		int i = start + 1;
+		while (i < length) {
+			char c = sql.charAt(i);
+			sb.append(c);
+			i++;
+			if (c == '\\' && quote != '`' && i < length) {
+				sb.append(sql.charAt(i));
+				i++;
+			} else if (c == quote) {
+				if (i < length && sql.charAt(i) == quote) {
+					sb.append(quote);
+					i++;
+				} else {
+					break;
+				}
+			}
+		}
+		return i;
+	}
+
+	private static void appendSpace(StringBuilder sb, boolean space) {
+		if (space && sb.length() > 0) {
+			sb.append(' ');
+		}
+	}
+
+	/**
+	 * 追加到 SQL 注释中的内容，合并空白并去掉注释结束符，避免跳出注释
+	 */
+	public static void appendCommentText(StringBuilder sb, String text) {
+		if (text == null) {
+			sb.append("null");
+			return;
+		}
+		boolean space = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = true;
+				continue;
+			}
+			if (space) {
+				sb.append(' ');
+				space = false;
+			}
+			if (c == '/' && sb.length() > 0 && sb.charAt(sb.length() - 1) == '*') {
+				sb.append(' ');
+			}
+			sb.append(c);
+		}
+		if (space) {
+			sb.append(' ');
+		}
+	}
+
+}
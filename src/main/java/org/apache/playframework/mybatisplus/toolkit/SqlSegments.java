@@ -0,0 +1,83 @@
+package org.apache.playframework.mybatisplus.toolkit;
+
+/**
+ * <p>
+ * Wrapper sqlSegment 切分
+ * </p>
+ * <p>
+ * sqlSegment 为 AND (条件) GROUP BY ... HAVING ... ORDER BY ...，条件部分放在 &lt;where&gt; 内，
+ * GROUP BY / ORDER BY 部分放在 &lt;where&gt; 之后，避免没有条件时生成 WHERE ORDER BY。
+ * 只识别括号与引号外的关键字，注入脚本中以 OGNL 静态方法调用。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class SqlSegments {
+
+	/**
+	 * 条件部分，没有时返回空字符串
+	 */
+	public static String condition(String sqlSegment) {
+		if (sqlSegment == null) {
+			return "";
+		}
+		int index = tailIndex(sqlSegment);
+		String condition = index < 0 ? sqlSegment : sqlSegment.substring(0, index);
+		return condition.trim().length() == 0 ? "" : condition;
+	}
+
+	/**
+	 * GROUP BY / ORDER BY 开始的部分，没有时返回空字符串
+	 */
+	public static String tail(String sqlSegment) {
+		if (sqlSegment == null) {
+			return "";
+		}
+		int index = tailIndex(sqlSegment);
+		return index < 0 ? "" : sqlSegment.substring(index);
+	}
+
+	/**
+	 * 括号与引号外第一个 GROUP BY 或 ORDER BY 的位置，没有时返回 -1
+	 */
+	public static int tailIndex(String sqlSegment) {
+		int depth = 0;
+		char quote = 0;
+		for (int i = 0; i < sqlSegment.length(); i++) {
+			char c = sqlSegment.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"' || c == '`') {
+				quote = c;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (depth == 0 && (c == 'G' || c == 'g' || c == 'O' || c == 'o')
+					&& (i == 0 || !isIdentifierPart(sqlSegment.charAt(i - 1)))
+					&& (isKeyword(sqlSegment, i, "GROUP") || isKeyword(sqlSegment, i, "ORDER"))) {
+				int j = i + 5;
+				while (j < sqlSegment.length() && Character.isWhitespace(sqlSegment.charAt(j))) {
+					j++;
+				}
+				if (j > i + 5 && isKeyword(sqlSegment, j, "BY")) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isKeyword(String sql, int index, String keyword) {
+		int end = index + keyword.length();
+		return sql.regionMatches(true, index, keyword, 0, keyword.length())
+				&& (end == sql.length() || !isIdentifierPart(sql.charAt(end)));
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+	}
+
+}
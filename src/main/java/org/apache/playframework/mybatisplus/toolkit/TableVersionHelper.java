@@ -0,0 +1,44 @@
+package org.apache.playframework.mybatisplus.toolkit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 实体乐观锁版本属性
+ * </p>
+ * <p>
+ * AutoSqlInjector 注入时登记识别到的版本字段，BaseServiceImpl 按主键更新时据此判断版本冲突。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class TableVersionHelper {
+
+	/* 实体类 - 版本属性 */
+	private static final Map<Class<?>, String> VERSION_PROPERTIES = new ConcurrentHashMap<Class<?>, String>();
+
+	/**
+	 * 登记版本属性
+	 *
+	 * @param entityClass
+	 *            实体类
+	 * @param property
+	 *            版本属性，null 表示没有版本字段
+	 */
+	public static void register(Class<?> entityClass, String property) {
+		if (null == property) {
+			VERSION_PROPERTIES.remove(entityClass);
+		} else {
+			VERSION_PROPERTIES.put(entityClass, property);
+		}
+	}
+
+	/**
+	 * 版本属性，没有版本字段返回 null
+	 */
+	public static String getVersionProperty(Class<?> entityClass) {
+		return VERSION_PROPERTIES.get(entityClass);
+	}
+
+}
@@ -1,5 +1,14 @@
 package org.apache.playframework.service;
 
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+
+import com.baomidou.mybatisplus.mapper.Wrapper;
+import com.baomidou.mybatisplus.plugins.Page;
 import com.baomidou.mybatisplus.service.IService;
 
 /**
@@ -17,4 +26,118 @@ public interface BaseService<T> extends IService<T> {
 	 * @return T
 	 */
 	T selectOne(T entity);
+
+	/**
+	 * <p>
+	 * 根据 Wrapper 流式查询，逐行回调，内存占用与结果集大小无关
+	 * </p>
+	 * @param wrapper 实体包装类 {@link Wrapper}
+	 * @param handler 行处理器
+	 */
+	void selectStream(Wrapper<T> wrapper, ResultHandler<T> handler);
+
+	/**
+	 * <p>
+	 * 根据 Wrapper 游标查询，需在事务内使用并在使用后关闭
+	 * </p>
+	 * @param wrapper 实体包装类 {@link Wrapper}
+	 * @return Cursor<T>
+	 */
+	Cursor<T> selectCursor(Wrapper<T> wrapper);
+
+	/**
+	 * <p>
+	 * 投影查询，只查询 DTO 属性对应的字段，结果按实体映射后复制同名属性到 DTO（wrapper 已指定 sqlSelect 时以其为准）
+	 * </p>
+	 * @param wrapper 实体包装类 {@link Wrapper}
+	 * @param projectionClass DTO 类
+	 * @return List<D>
+	 */
+	<D> List<D> selectList(Wrapper<T> wrapper, Class<D> projectionClass);
+
+	/**
+	 * <p>
+	 * 投影分页查询，只查询 DTO 属性对应的字段，结果按实体映射后复制同名属性到 DTO
+	 * </p>
+	 * @param page 分页查询条件
+	 * @param wrapper 实体包装类 {@link Wrapper}
+	 * @param projectionClass DTO 类
+	 * @return Page<D>
+	 */
+	<D> Page<D> selectPage(Page<D> page, Wrapper<T> wrapper, Class<D> projectionClass);
+
+	/**
+	 * <p>
+	 * 根据 ID 合并加载，请求内登记的 ID 在第一次获取结果时合并为一次 selectBatchIds
+	 * </p>
+	 * @param id 主键ID
+	 * @return CompletableFuture<T>
+	 */
+	CompletableFuture<T> loadById(Serializable id);
+
+	/**
+	 * <p>
+	 * 根据 ID 修改全部字段，为 null 的字段也会更新
+	 * </p>
+	 * <p>
+	 * 与 updateById 相同，实体带乐观锁版本时检查版本，冲突抛出 OptimisticLockException
+	 * </p>
+	 * @param entity 实体对象
+	 * @return boolean
+	 */
+	boolean updateAllColumnById(T entity);
+
+	/**
+	 * <p>
+	 * 插入或根据主键更新，单条 SQL 完成（MYSQL ON DUPLICATE KEY UPDATE，ORACLE MERGE）
+	 * </p>
+	 * <p>
+	 * 乐观锁版本字段更新时为数据库当前值 +1，不检查实体版本；需要检查版本时使用 insertOrUpdate 或 updateById
+	 * </p>
+	 * <p>
+	 * 语句执行成功即返回 true：MYSQL 命中已有记录且值未变化时影响行数为 0，不能据此判断是否写入
+	 * </p>
+	 * @param entity 实体对象，主键不能为空
+	 * @return boolean
+	 */
+	boolean upsert(T entity);
+
+	/**
+	 * <p>
+	 * 批量插入或根据主键更新，插入时写入全部字段，更新时空值字段保留已有值
+	 * </p>
+	 * @param entityList 实体对象列表
+	 * @return boolean
+	 */
+	boolean upsertBatch(List<T> entityList);
+
+	/**
+	 * <p>
+	 * 批量插入或根据主键更新，插入时写入全部字段，更新时空值字段保留已有值
+	 * </p>
+	 * @param entityList 实体对象列表
+	 * @param batchSize 单条语句最大行数
+	 * @return boolean
+	 */
+	boolean upsertBatch(List<T> entityList, int batchSize);
+
+	/**
+	 * <p>
+	 * 根据 ID JDBC 批量修改，按非空字段分组，每组使用同一个 PreparedStatement 批量执行
+	 * </p>
+	 * @param entityList 实体对象列表
+	 * @param batchSize 每次 executeBatch 最大条数
+	 * @return 与 entityList 顺序一致的影响行数，乐观锁版本冲突的实体为 0，其余带版本的实体版本加 1
+	 */
+	int[] batchUpdateById(List<T> entityList, int batchSize);
+
+	/**
+	 * <p>
+	 * 根据 ID JDBC 批量修改全部字段，所有实体使用同一个 PreparedStatement
+	 * </p>
+	 * @param entityList 实体对象列表
+	 * @param batchSize 每次 executeBatch 最大条数
+	 * @return 与 entityList 顺序一致的影响行数，乐观锁版本冲突的实体为 0，其余带版本的实体版本加 1
+	 */
+	int[] batchUpdateAllColumnById(List<T> entityList, int batchSize);
 }
@@ -6,5 +6,19 @@ public interface FieldFillService {
 	public Map<String, Object> getInsertData();
 
 	public Map<String, Object> getUpdateData();
+
+	/**
+	 * 插入填充计划，BaseServiceImpl 创建时获取一次，每次调用求值；返回 null 时每次调用 getInsertData()
+	 */
+	default Map<String, FieldFillValue> getInsertFill() {
+		return null;
+	}
+
+	/**
+	 * 更新填充计划，BaseServiceImpl 创建时获取一次，每次调用求值；返回 null 时每次调用 getUpdateData()
+	 */
+	default Map<String, FieldFillValue> getUpdateFill() {
+		return null;
+	}
 	 
 }
@@ -0,0 +1,34 @@
+package org.apache.playframework.service;
+
+import java.util.Date;
+
+/**
+ * <p>
+ * 字段填充值
+ * </p>
+ * <p>
+ * 每次 insert/update 调用（批量方法每批）求值一次，同一批次共享一次时钟读取；
+ * 返回值按目标字段类型转换，Date 类型每个实体一个实例。
+ * </p>
+ * @author willenfoo
+ *
+ */
+public interface FieldFillValue {
+
+	/**
+	 * 当前时间，可填充 Date、Timestamp、Long 字段
+	 */
+	FieldFillValue NOW = new FieldFillValue() {
+		@Override
+		public Object get(long now) {
+			return new Date(now);
+		}
+	};
+
+	/**
+	 * @param now 本批次时间戳（毫秒）
+	 * @return 填充值，null 不填充
+	 */
+	Object get(long now);
+
+}
@@ -3,6 +3,7 @@ package org.apache.playframework.service.filter;
 import org.apache.playframework.cache.CacheSwitcher;
 import org.apache.playframework.log.Logger;
 import org.apache.playframework.log.LoggerFactory;
+import org.apache.playframework.service.impl.BatchLoaderContext;
 import org.apache.playframework.util.Request;
 
 import com.alibaba.dubbo.common.Constants;
@@ -39,6 +40,7 @@ public class DubboServiceFilter implements Filter {
 			Request.setId(reqId);
 			boolean cached = Boolean.valueOf(invocation.getAttachment(cachedKey, "true"));
 			CacheSwitcher.set(cached);
+			BatchLoaderContext.begin();
 		} else {
 			String reqId = Request.getId();
 			invocation.getAttachments().put(reqidKey, reqId);
@@ -50,6 +52,9 @@ public class DubboServiceFilter implements Filter {
 		try {
 			result = invoker.invoke(invocation);
 		} finally {
+			if (provider) {
+				BatchLoaderContext.end();
+			}
 			long timeused = (System.currentTimeMillis() - start);
 			if (!"com.alibaba.dubbo.monitor.MonitorService".equalsIgnoreCase(interfaceStr)) {
 				logger.info("{} {} interface={}.{} timeused={}", provider ? "from client" : "to service", remoteIp,
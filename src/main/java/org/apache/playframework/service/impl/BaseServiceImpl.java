@@ -1,15 +1,50 @@
 package org.apache.playframework.service.impl;
 
 import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.playframework.cache.CacheSwitcher;
+import org.apache.playframework.cache.CacheValue;
+import org.apache.playframework.cache.EntityCache;
+import org.apache.playframework.cache.EntityCacheManager;
+import org.apache.playframework.exception.OptimisticLockException;
+import org.apache.playframework.mybatisplus.enums.SqlMethod;
+import org.apache.playframework.mybatisplus.mapper.IdListSqlSource;
+import org.apache.playframework.mybatisplus.toolkit.TableVersionHelper;
 import org.apache.playframework.service.BaseService;
 import org.apache.playframework.service.FieldFillService;
-import org.apache.playframework.util.ReflectUtils;
+import org.apache.playframework.service.FieldFillValue;
+import org.apache.playframework.util.ListUtils;
+import org.apache.playframework.util.SharedExecutors;
 import org.apache.playframework.util.SpringUtils;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.baomidou.mybatisplus.entity.GlobalConfiguration;
+import com.baomidou.mybatisplus.entity.TableFieldInfo;
 import com.baomidou.mybatisplus.entity.TableInfo;
+import com.baomidou.mybatisplus.enums.DBType;
+import com.baomidou.mybatisplus.enums.FieldStrategy;
 import com.baomidou.mybatisplus.enums.IdType;
 import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
 import com.baomidou.mybatisplus.mapper.BaseMapper;
@@ -18,20 +53,45 @@ import org.apache.playframework.log.Logger;
 import org.apache.playframework.log.LoggerFactory;
 import org.apache.playframework.mybatisplus.mapper.EntityWrapper;
 import com.baomidou.mybatisplus.mapper.Wrapper;
+import com.baomidou.mybatisplus.plugins.Page;
 import com.baomidou.mybatisplus.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.toolkit.ReflectionKit;
 import com.baomidou.mybatisplus.toolkit.StringUtils;
 import com.baomidou.mybatisplus.toolkit.TableInfoHelper;
 
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
 public class BaseServiceImpl<M extends BaseMapper<T>, T> extends ServiceImpl<BaseMapper<T>, T> implements BaseService<T> {
 
 	protected Logger logger = LoggerFactory.getLogger(this.getClass());
 	
 	private FieldFillService fieldFillService;
 
-	private Map<String, Object> insertData;
+	/* 插入填充计划，为 null 时每次调用 fieldFillService.getInsertData() */
+	private Map<String, FieldFillValue> insertFill;
+
+	/* 更新填充计划，为 null 时每次调用 fieldFillService.getUpdateData() */
+	private Map<String, FieldFillValue> updateFill;
+
+	/* 多行 INSERT 单条语句最大行数 */
+	private int insertBatchRowLimit = 1000;
+
+	private SqlSession sqlSession;
+
+	/* 缓存过期前提前刷新系数，0 关闭 */
+	private double earlyRefreshBeta = 1.0;
+
+	private static final SingleFlightLoader SINGLE_FLIGHT = new SingleFlightLoader();
+
+	/* loadById 合并查询最大 ID 数 */
+	private int loadBatchSize = 500;
+
+	/* updateBatchById 每次 executeBatch 最大条数 */
+	private int updateBatchSize = 1000;
 
-	private Map<String, Object> updateData;
+	/* selectBatchIds / deleteBatchIds 单条 SQL 最大 ID 数，超过时分块执行，应为 2 的幂，ORACLE 不超过 1000 */
+	private int batchIdsChunkSize = 1024;
 
 	public BaseServiceImpl() {
 		if (SpringUtils.getBeanFactory() != null && SpringUtils.containsBean("fieldFillService")) {
@@ -39,36 +99,54 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> extends ServiceImpl<Bas
 		} else {
 			fieldFillService = new FieldFillServiceDefaultImpl();
 		}
-		insertData = fieldFillService.getInsertData();
-		updateData = fieldFillService.getUpdateData();
+		insertFill = fieldFillService.getInsertFill();
+		updateFill = fieldFillService.getUpdateFill();
 	}
 	
 	private void setInsertData(T entity) {
-		for (Map.Entry<String, Object> entry : insertData.entrySet()) {
-			ReflectUtils.setProperty(entity, entry.getKey(), entry.getValue());
-		}
+		FieldFillPlan.fill(entity, insertFill != null ? insertFill : fieldFillService.getInsertData());
 	}
 
 	private void setInsertData(List<T> list) {
-		for (T t : list) {
-			for (Map.Entry<String, Object> entry : insertData.entrySet()) {
-				ReflectUtils.setProperty(t, entry.getKey(), entry.getValue());
+		FieldFillPlan.fill(list, insertFill != null ? insertFill : fieldFillService.getInsertData());
+	}
+
+	/**
+	 * 插入时版本为空的设为 1，之后按主键更新才会检查版本
+	 */
+	private void setInsertVersion(T entity) {
+		String property = entity == null ? null : TableVersionHelper.getVersionProperty(entity.getClass());
+		if (property == null) {
+			return;
+		}
+		MetaObject metaObject = SystemMetaObject.forObject(entity);
+		if (metaObject.getValue(property) != null) {
+			return;
+		}
+		Class<?> type = metaObject.getSetterType(property);
+		if (type == Long.class || type == long.class) {
+			metaObject.setValue(property, 1L);
+		} else if (type == Integer.class || type == int.class) {
+			metaObject.setValue(property, 1);
+		} else if (type == Short.class || type == short.class) {
+			metaObject.setValue(property, (short) 1);
+		}
+	}
+
+	private void setInsertVersion(List<T> list) {
+		if (list != null) {
+			for (T entity : list) {
+				setInsertVersion(entity);
 			}
 		}
 	}
 
 	private void setUpdateData(T entity) {
-		for (Map.Entry<String, Object> entry : updateData.entrySet()) {
-			ReflectUtils.setProperty(entity, entry.getKey(), entry.getValue());
-		}
+		FieldFillPlan.fill(entity, updateFill != null ? updateFill : fieldFillService.getUpdateData());
 	}
 
 	private void setUpdateData(List<T> list) {
-		for (T t : list) {
-			for (Map.Entry<String, Object> entry : updateData.entrySet()) {
-				ReflectUtils.setProperty(t, entry.getKey(), entry.getValue());
-			}
-		}
+		FieldFillPlan.fill(list, updateFill != null ? updateFill : fieldFillService.getUpdateData());
 	}
 
 	@Override
@@ -84,6 +162,10 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> extends ServiceImpl<Bas
 				} else {
 					/* 特殊处理 INPUT 主键策略逻辑 */
 					if (IdType.INPUT == tableInfo.getIdType()) {
+						/* 单条 SQL 插入或更新，避免先查询再写入的并发问题；有版本字段时走 updateById 检查版本 */
+						if (hasStatement(SqlMethod.UPSERT) && null == TableVersionHelper.getVersionProperty(cls)) {
+							return upsert(entity);
+						}
 						T entityValue = selectById((Serializable) idVal);
 						if (null != entityValue) {
 							setUpdateData(entity);
@@ -103,40 +185,603 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> extends ServiceImpl<Bas
 		return false;
 	}
 
+	@Override
+	public boolean upsert(T entity) {
+		setInsertData(entity);
+		setInsertVersion(entity);
+		setUpdateData(entity);
+		Map<String, Object> param = new HashMap<String, Object>();
+		param.put("et", entity);
+		param.put("insertOnly", insertOnlyProperties());
+		try {
+			/* MYSQL 命中且未变化时影响行数为 0，执行成功即视为成功 */
+			sqlSession().insert(sqlStatement(SqlMethod.UPSERT), param);
+			return true;
+		} finally {
+			evictCache(keyValue(entity));
+		}
+	}
+
+	@Override
+	public boolean upsertBatch(List<T> entityList) {
+		return upsertBatch(entityList, insertBatchRowLimit);
+	}
+
+	@Override
+	public boolean upsertBatch(List<T> entityList, int batchSize) {
+		if (ListUtils.isEmpty(entityList)) {
+			throw new IllegalArgumentException("Error: entityList must not be empty");
+		}
+		setInsertData(entityList);
+		setInsertVersion(entityList);
+		setUpdateData(entityList);
+		String statement = sqlStatement(SqlMethod.UPSERT_BATCH);
+		Set<String> insertOnly = insertOnlyProperties();
+		int rows = Math.max(1, Math.min(batchSize, insertBatchRowLimit));
+		int size = entityList.size();
+		try {
+			/* 单条语句多行，按行数上限分段 */
+			for (int i = 0; i < size; i += rows) {
+				Map<String, Object> param = new HashMap<String, Object>();
+				param.put("list", entityList.subList(i, Math.min(i + rows, size)));
+				param.put("insertOnly", insertOnly);
+				sqlSession().insert(statement, param);
+			}
+		} finally {
+			for (T entity : entityList) {
+				evictCache(keyValue(entity));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 只在插入时填充的属性，插入或更新命中已有记录时不覆盖
+	 */
+	private Set<String> insertOnlyProperties() {
+		Set<String> properties = new HashSet<String>(insertFill != null ? insertFill.keySet()
+				: fieldFillService.getInsertData().keySet());
+		properties.removeAll(updateFill != null ? updateFill.keySet() : fieldFillService.getUpdateData().keySet());
+		return properties;
+	}
+
 	@Override
 	public boolean insert(T entity) {
 		setInsertData(entity);
+		setInsertVersion(entity);
 		return super.insert(entity);
 	}
 
 	@Override
 	public boolean insertBatch(List<T> entityList) {
+		if (hasStatement(SqlMethod.INSERT_BATCH)) {
+			return insertBatch(entityList, insertBatchRowLimit);
+		}
 		setInsertData(entityList);
+		setInsertVersion(entityList);
 		return super.insertBatch(entityList);
 	}
 
+	/**
+	 * 多行 VALUES 插入，为空的字段使用列的 DEFAULT 值：按集合顺序把非空字段相同的相邻实体分为一段，
+	 * 每段按行数上限执行，插入顺序与集合顺序一致
+	 */
 	@Override
 	public boolean insertBatch(List<T> entityList, int batchSize) {
 		setInsertData(entityList);
-		return super.insertBatch(entityList, batchSize);
+		setInsertVersion(entityList);
+		if (!hasStatement(SqlMethod.INSERT_BATCH)) {
+			return super.insertBatch(entityList, batchSize);
+		}
+		if (ListUtils.isEmpty(entityList)) {
+			throw new IllegalArgumentException("Error: entityList must not be empty");
+		}
+		/* 非空字段变化或达到行数上限时分段，为空的字段不写入，保留列的 DEFAULT 值 */
+		int rows = Math.max(1, Math.min(batchSize, insertBatchRowLimit));
+		String statement = sqlStatement(SqlMethod.INSERT_BATCH);
+		int size = entityList.size();
+		int start = 0;
+		BitSet mask = fieldMask(entityList.get(0));
+		for (int i = 1; i <= size; i++) {
+			BitSet next = i < size ? fieldMask(entityList.get(i)) : null;
+			if (next == null || !next.equals(mask) || i - start >= rows) {
+				sqlSession().insert(statement, entityList.subList(start, i));
+				start = i;
+				mask = next;
+			}
+		}
+		return true;
 	}
 
+	/**
+	 * 根据 ID 修改，表有乐观锁版本字段且实体版本不为空时，SET 版本+1 并在 WHERE 中检查版本，
+	 * 未更新到记录时抛出 {@link OptimisticLockException}，成功后实体版本加 1
+	 */
 	@Override
 	public boolean updateById(T entity) {
 		setUpdateData(entity);
-		return super.updateById(entity);
+		Object version = versionValue(entity);
+		try {
+			return checkVersion(entity, version, super.updateById(entity));
+		} finally {
+			evictCache(keyValue(entity));
+		}
 	}
 
 	@Override
 	public boolean update(T entity, Wrapper<T> wrapper) {
 		setUpdateData(entity);
-		return super.update(entity, wrapper);
+		try {
+			return super.update(entity, wrapper);
+		} finally {
+			evictCache();
+		}
+	}
+
+	@Override
+	public boolean updateAllColumnById(T entity) {
+		setUpdateData(entity);
+		Object version = versionValue(entity);
+		try {
+			return checkVersion(entity, version,
+					sqlSession().update(sqlStatement(SqlMethod.UPDATE_ALL_COLUMN_BY_ID), entity) >= 1);
+		} finally {
+			evictCache(keyValue(entity));
+		}
 	}
 
+	/**
+	 * JDBC 批量根据 ID 修改，带版本的实体未更新到记录时抛出 {@link OptimisticLockException}（事务中整批回滚），
+	 * 其它实体未更新到记录时返回 false
+	 */
 	@Override
 	public boolean updateBatchById(List<T> entityList) {
+		List<Object> versions = versionValues(entityList);
+		int[] counts = batchUpdateById(entityList, updateBatchSize);
+		boolean updated = true;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == 0) {
+				T entity = entityList.get(i);
+				if (versions.get(i) != null) {
+					throw new OptimisticLockException(entity.getClass(), keyValue(entity), versions.get(i));
+				}
+				updated = false;
+			}
+		}
+		return updated;
+	}
+
+	@Override
+	public int[] batchUpdateById(List<T> entityList, int batchSize) {
+		if (ListUtils.isEmpty(entityList)) {
+			throw new IllegalArgumentException("Error: entityList must not be empty");
+		}
 		setUpdateData(entityList);
-		return super.updateBatchById(entityList);
+		List<Object> versions = versionValues(entityList);
+		try {
+			/* 按非空字段分组，同组 SQL 相同，连续执行复用同一个 PreparedStatement */
+			Map<BitSet, List<Integer>> groups = new LinkedHashMap<BitSet, List<Integer>>();
+			for (int i = 0; i < entityList.size(); i++) {
+				BitSet mask = fieldMask(entityList.get(i));
+				List<Integer> group = groups.get(mask);
+				if (group == null) {
+					group = new ArrayList<Integer>();
+					groups.put(mask, group);
+				}
+				group.add(i);
+			}
+			List<T> ordered = new ArrayList<T>(entityList.size());
+			for (List<Integer> group : groups.values()) {
+				for (Integer index : group) {
+					ordered.add(entityList.get(index));
+				}
+			}
+			int[] orderedCounts = BatchStatementExecutor.execute(sqlSession(), sqlStatement(SqlMethod.UPDATE_BY_ID),
+					ordered, batchSize);
+			int[] counts = new int[entityList.size()];
+			int position = 0;
+			for (List<Integer> group : groups.values()) {
+				for (Integer index : group) {
+					counts[index] = orderedCounts[position++];
+				}
+			}
+			incrementVersions(entityList, versions, counts);
+			return counts;
+		} finally {
+			for (T entity : entityList) {
+				evictCache(keyValue(entity));
+			}
+		}
+	}
+
+	@Override
+	public int[] batchUpdateAllColumnById(List<T> entityList, int batchSize) {
+		if (ListUtils.isEmpty(entityList)) {
+			throw new IllegalArgumentException("Error: entityList must not be empty");
+		}
+		setUpdateData(entityList);
+		List<Object> versions = versionValues(entityList);
+		try {
+			int[] counts = BatchStatementExecutor.execute(sqlSession(), sqlStatement(SqlMethod.UPDATE_ALL_COLUMN_BY_ID),
+					entityList, batchSize);
+			incrementVersions(entityList, versions, counts);
+			return counts;
+		} finally {
+			for (T entity : entityList) {
+				evictCache(keyValue(entity));
+			}
+		}
+	}
+
+	/**
+	 * updateById SET 子句、insertBatch 字段列表包含的字段，与 AutoSqlInjector 的字段策略一致
+	 */
+	private BitSet fieldMask(T entity) {
+		Configuration configuration = sqlSession().getConfiguration();
+		TableInfo tableInfo = TableInfoHelper.getTableInfo(entity.getClass());
+		MetaObject metaObject = configuration.newMetaObject(entity);
+		List<TableFieldInfo> fieldList = tableInfo.getFieldList();
+		BitSet mask = new BitSet(fieldList.size());
+		for (int i = 0; i < fieldList.size(); i++) {
+			TableFieldInfo fieldInfo = fieldList.get(i);
+			if (fieldInfo.getFieldStrategy() == FieldStrategy.IGNORED) {
+				continue;
+			}
+			Object value = metaObject.getValue(fieldInfo.getProperty());
+			if (value == null || (fieldInfo.getFieldStrategy() == FieldStrategy.NOT_EMPTY && value instanceof CharSequence
+					&& ((CharSequence) value).length() == 0)) {
+				continue;
+			}
+			mask.set(i);
+		}
+		return mask;
+	}
+
+	@Override
+	public boolean deleteById(Serializable id) {
+		try {
+			return super.deleteById(id);
+		} finally {
+			evictCache(id);
+		}
+	}
+
+	@Override
+	public boolean deleteBatchIds(List<? extends Serializable> idList) {
+		try {
+			int chunkSize = batchIdsChunkSize();
+			if (ListUtils.isEmpty(idList) || idList.size() <= chunkSize) {
+				return super.deleteBatchIds(idList);
+			}
+			/* 分块依次删除，参与当前事务 */
+			int count = 0;
+			for (int i = 0; i < idList.size(); i += chunkSize) {
+				Integer result = baseMapper.deleteBatchIds(idList.subList(i, Math.min(idList.size(), i + chunkSize)));
+				count += result == null ? 0 : result;
+			}
+			return count >= 1;
+		} finally {
+			if (!ListUtils.isEmpty(idList)) {
+				for (Serializable id : idList) {
+					evictCache(id);
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean deleteByMap(Map<String, Object> columnMap) {
+		try {
+			return super.deleteByMap(columnMap);
+		} finally {
+			evictCache();
+		}
+	}
+
+	@Override
+	public boolean delete(Wrapper<T> wrapper) {
+		try {
+			return super.delete(wrapper);
+		} finally {
+			evictCache();
+		}
+	}
+
+	/**
+	 * 根据 ID 查询，实体标注 {@link EntityCache} 时读取缓存，CacheSwitcher 关闭时直接查询数据库并刷新缓存。
+	 * 缓存未命中或临近过期需提前刷新时，同一 ID 的并发查询只访问一次数据库。
+	 * 事务中可能读到本事务未提交的修改，直接查询数据库，不写缓存也不与其它线程共享结果。
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T selectById(final Serializable id) {
+		final Ehcache cache = entityCache();
+		if (cache == null || id == null) {
+			return super.selectById(id);
+		}
+		if (CacheSwitcher.get()) {
+			T entity = getCache(cache, id);
+			if (entity != null) {
+				return entity;
+			}
+		}
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return super.selectById(id);
+		}
+		try {
+			T entity = SINGLE_FLIGHT.load(Arrays.asList(currentEntityClass(), id), new Callable<T>() {
+				public T call() {
+					long start = System.currentTimeMillis();
+					T entity = BaseServiceImpl.super.selectById(id);
+					putCache(cache, entity, System.currentTimeMillis() - start);
+					return entity;
+				}
+			});
+			/* 并发请求共享加载结果，各自返回副本 */
+			return EntityCacheManager.copy(entity);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new MybatisPlusException(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<T> loadById(Serializable id) {
+		return BatchLoaderContext.load(this, id, loadBatchSize);
+	}
+
+	/**
+	 * 根据 ID 集合查询，缓存未命中的 ID 一次查询数据库，事务中查询的结果不写缓存
+	 */
+	@Override
+	public List<T> selectBatchIds(List<? extends Serializable> idList) {
+		Ehcache cache = entityCache();
+		if (cache == null || ListUtils.isEmpty(idList)) {
+			return selectChunkedIds(idList);
+		}
+		List<T> result = new ArrayList<T>(idList.size());
+		List<Serializable> missIds = new ArrayList<Serializable>();
+		boolean cached = CacheSwitcher.get();
+		for (Serializable id : idList) {
+			T entity = cached ? getCache(cache, id) : null;
+			if (entity != null) {
+				result.add(entity);
+			} else {
+				missIds.add(id);
+			}
+		}
+		if (!missIds.isEmpty()) {
+			long start = System.currentTimeMillis();
+			List<T> entityList = selectChunkedIds(missIds);
+			long loadMillis = System.currentTimeMillis() - start;
+			if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+				for (T entity : entityList) {
+					putCache(cache, entity, loadMillis);
+				}
+			}
+			result.addAll(entityList);
+		}
+		return result;
+	}
+
+	/**
+	 * ID 数超过单条 SQL 上限时分块查询后按块顺序合并，非事务中各块在共享查询线程池并行查询
+	 */
+	private List<T> selectChunkedIds(List<? extends Serializable> idList) {
+		int chunkSize = batchIdsChunkSize();
+		if (ListUtils.isEmpty(idList) || idList.size() <= chunkSize) {
+			return super.selectBatchIds(idList);
+		}
+		List<List<? extends Serializable>> chunks = new ArrayList<List<? extends Serializable>>();
+		for (int i = 0; i < idList.size(); i += chunkSize) {
+			chunks.add(idList.subList(i, Math.min(idList.size(), i + chunkSize)));
+		}
+		List<T> result = new ArrayList<T>(idList.size());
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			/* 事务中使用同一连接 */
+			for (List<? extends Serializable> chunk : chunks) {
+				result.addAll(baseMapper.selectBatchIds(chunk));
+			}
+			return result;
+		}
+		List<Future<List<T>>> futures = new ArrayList<Future<List<T>>>(chunks.size());
+		for (final List<? extends Serializable> chunk : chunks) {
+			futures.add(SharedExecutors.submitQuery(new Callable<List<T>>() {
+				public List<T> call() {
+					return baseMapper.selectBatchIds(chunk);
+				}
+			}));
+		}
+		try {
+			for (Future<List<T>> future : futures) {
+				result.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MybatisPlusException(e);
+		} catch (ExecutionException e) {
+			/* 抛出原始异常，调用方按 DataAccessException 等原类型处理 */
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new MybatisPlusException(cause);
+		} finally {
+			for (Future<List<T>> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 单条 SQL 最大 ID 数，ORACLE IN 列表不能超过 1000 项
+	 */
+	private int batchIdsChunkSize() {
+		if (GlobalConfiguration.getDbType(sqlSession().getConfiguration()) == DBType.ORACLE) {
+			return Math.min(batchIdsChunkSize, IdListSqlSource.ORACLE_MAX_IN_SIZE);
+		}
+		return batchIdsChunkSize;
+	}
+
+	/**
+	 * 当前实体缓存，未标注 {@link EntityCache} 返回 null
+	 */
+	protected Ehcache entityCache() {
+		return EntityCacheManager.getCache(currentEntityClass());
+	}
+
+	/**
+	 * 读取缓存副本，临近过期按概率提前刷新，需要刷新时返回 null
+	 */
+	@SuppressWarnings("unchecked")
+	private T getCache(Ehcache cache, Object id) {
+		Element element = cache.get(id);
+		if (element == null) {
+			return null;
+		}
+		CacheValue value = (CacheValue) element.getObjectValue();
+		if (value.shouldRefresh(cache.getCacheConfiguration().getTimeToLiveSeconds() * 1000L, earlyRefreshBeta)) {
+			return null;
+		}
+		return EntityCacheManager.copy((T) value.getValue());
+	}
+
+	private void putCache(Ehcache cache, T entity, long loadMillis) {
+		Object id = keyValue(entity);
+		if (id != null) {
+			cache.put(new Element(id, new CacheValue(EntityCacheManager.copy(entity), System.currentTimeMillis(), loadMillis)));
+		}
+	}
+
+	public void setBatchIdsChunkSize(int batchIdsChunkSize) {
+		this.batchIdsChunkSize = batchIdsChunkSize;
+	}
+
+	public void setLoadBatchSize(int loadBatchSize) {
+		this.loadBatchSize = loadBatchSize;
+	}
+
+	public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+		this.earlyRefreshBeta = earlyRefreshBeta;
+	}
+
+	/**
+	 * 失效缓存，事务中在事务结束后再次失效，避免并发读取把旧数据写回缓存
+	 */
+	protected void evictCache(final Object id) {
+		final Ehcache cache = entityCache();
+		if (cache == null || id == null) {
+			return;
+		}
+		cache.remove(id);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					cache.remove(id);
+				}
+			});
+		}
+	}
+
+	/**
+	 * 按条件更新删除，无法确定影响的 ID，失效全部缓存
+	 */
+	protected void evictCache() {
+		final Ehcache cache = entityCache();
+		if (cache == null) {
+			return;
+		}
+		cache.removeAll();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					cache.removeAll();
+				}
+			});
+		}
+	}
+
+	/**
+	 * 实体主键值
+	 */
+	protected Object keyValue(T entity) {
+		if (entity == null) {
+			return null;
+		}
+		TableInfo tableInfo = TableInfoHelper.getTableInfo(entity.getClass());
+		if (tableInfo == null) {
+			return null;
+		}
+		return ReflectionKit.getMethodValue(entity.getClass(), entity, tableInfo.getKeyProperty());
+	}
+
+	/**
+	 * 实体乐观锁版本，表没有版本字段或版本为空时返回 null
+	 */
+	private Object versionValue(T entity) {
+		String property = entity == null ? null : TableVersionHelper.getVersionProperty(entity.getClass());
+		if (property == null) {
+			return null;
+		}
+		return SystemMetaObject.forObject(entity).getValue(property);
+	}
+
+	/**
+	 * 批量更新前各实体的乐观锁版本
+	 */
+	private List<Object> versionValues(List<T> entityList) {
+		List<Object> versions = new ArrayList<Object>(entityList.size());
+		for (T entity : entityList) {
+			versions.add(versionValue(entity));
+		}
+		return versions;
+	}
+
+	/**
+	 * 批量更新后已更新到记录（影响行数不为 0，含驱动返回的 SUCCESS_NO_INFO）的带版本实体版本加 1
+	 */
+	private void incrementVersions(List<T> entityList, List<Object> versions, int[] counts) {
+		for (int i = 0; i < counts.length; i++) {
+			if (versions.get(i) != null && counts[i] != 0) {
+				incrementVersion(entityList.get(i), versions.get(i));
+			}
+		}
+	}
+
+	/**
+	 * 带版本更新：未更新到记录即版本冲突，抛出 {@link OptimisticLockException}；更新成功后实体版本与数据库保持一致
+	 */
+	private boolean checkVersion(T entity, Object version, boolean updated) {
+		if (version == null) {
+			return updated;
+		}
+		if (!updated) {
+			throw new OptimisticLockException(entity.getClass(), keyValue(entity), version);
+		}
+		incrementVersion(entity, version);
+		return true;
+	}
+
+	/**
+	 * 实体版本加 1，与 SQL 中的 版本+1 一致
+	 */
+	private void incrementVersion(T entity, Object version) {
+		MetaObject metaObject = SystemMetaObject.forObject(entity);
+		String property = TableVersionHelper.getVersionProperty(entity.getClass());
+		if (version instanceof Long) {
+			metaObject.setValue(property, (Long) version + 1);
+		} else if (version instanceof Integer) {
+			metaObject.setValue(property, (Integer) version + 1);
+		} else if (version instanceof Short) {
+			metaObject.setValue(property, (short) ((Short) version + 1));
+		}
 	}
 
 	@Override
@@ -144,4 +789,142 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> extends ServiceImpl<Bas
 		return selectOne(new EntityWrapper<T>(entity));
 	}
 
+	@Override
+	public void selectStream(Wrapper<T> wrapper, ResultHandler<T> handler) {
+		sqlSession().select(sqlStatement(SqlMethod.SELECT_STREAM), wrapperParam(wrapper), handler);
+	}
+
+	@Override
+	public Cursor<T> selectCursor(Wrapper<T> wrapper) {
+		return sqlSession().selectCursor(sqlStatement(SqlMethod.SELECT_STREAM), wrapperParam(wrapper));
+	}
+
+	@Override
+	public <D> List<D> selectList(Wrapper<T> wrapper, Class<D> projectionClass) {
+		ProjectionHandler<D> handler = new ProjectionHandler<D>(currentEntityClass(), projectionClass);
+		sqlSession().select(sqlStatement(SqlMethod.SELECT_LIST), wrapperParam(projection(wrapper, projectionClass)),
+				handler);
+		return handler.records;
+	}
+
+	@Override
+	public <D> Page<D> selectPage(Page<D> page, Wrapper<T> wrapper, Class<D> projectionClass) {
+		ProjectionHandler<D> handler = new ProjectionHandler<D>(currentEntityClass(), projectionClass);
+		sqlSession().select(sqlStatement(SqlMethod.SELECT_PAGE), wrapperParam(projection(wrapper, projectionClass)), page,
+				handler);
+		page.setRecords(handler.records);
+		return page;
+	}
+
+	/**
+	 * 未指定查询字段时按 DTO 属性设置投影字段，不修改调用方的 wrapper
+	 */
+	@SuppressWarnings("unchecked")
+	private Wrapper<T> projection(Wrapper<T> wrapper, Class<?> projectionClass) {
+		if (null == wrapper) {
+			return new EntityWrapper<T>((Class<T>) currentEntityClass()).selectProjection(projectionClass);
+		}
+		if (wrapper instanceof EntityWrapper && null == wrapper.getSqlSelect()) {
+			return new ProjectionWrapper<T>((EntityWrapper<T>) wrapper, (Class<T>) currentEntityClass(), projectionClass);
+		}
+		return wrapper;
+	}
+
+	/**
+	 * 调用方 EntityWrapper 的投影副本：条件与实体取自原 wrapper，查询字段为 DTO 属性对应的字段
+	 */
+	@SuppressWarnings("serial")
+	private static class ProjectionWrapper<T> extends EntityWrapper<T> {
+
+		private final EntityWrapper<T> wrapper;
+
+		ProjectionWrapper(EntityWrapper<T> wrapper, Class<T> entityClass, Class<?> projectionClass) {
+			this.wrapper = wrapper;
+			this.entity = wrapper.getEntity();
+			this.entityClass = null != wrapper.getEntityClass() ? wrapper.getEntityClass() : entityClass;
+			selectProjection(projectionClass);
+		}
+
+		@Override
+		public String getSqlSegment() {
+			return wrapper.getSqlSegment();
+		}
+	}
+
+	/**
+	 * 注入语句按实体映射的结果逐行复制为 DTO
+	 */
+	private static class ProjectionHandler<D> implements ResultHandler<Object> {
+
+		private final ProjectionPlan plan;
+
+		private final List<D> records = new ArrayList<D>();
+
+		ProjectionHandler(Class<?> entityClass, Class<D> projectionClass) {
+			this.plan = ProjectionPlan.of(entityClass, projectionClass);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void handleResult(ResultContext<? extends Object> context) {
+			records.add((D) plan.copy(context.getResultObject()));
+		}
+	}
+
+	/**
+	 * 注入语句的 ew 参数
+	 */
+	protected Map<String, Object> wrapperParam(Wrapper<T> wrapper) {
+		Map<String, Object> param = new HashMap<String, Object>();
+		param.put("ew", wrapper);
+		return param;
+	}
+
+	/**
+	 * 当前 Mapper 绑定的 SqlSession（Spring 环境下为 SqlSessionTemplate，参与当前事务）
+	 */
+	protected SqlSession sqlSession() {
+		if (sqlSession == null) {
+			Object mapperProxy = Proxy.getInvocationHandler(baseMapper);
+			sqlSession = (SqlSession) SystemMetaObject.forObject(mapperProxy).getValue("sqlSession");
+		}
+		return sqlSession;
+	}
+
+	/**
+	 * 当前实体类
+	 */
+	protected Class<?> currentEntityClass() {
+		return ReflectionKit.getSuperClassGenricType(getClass(), 1);
+	}
+
+	/**
+	 * 当前 Mapper 接口
+	 */
+	protected Class<?> currentMapperClass() {
+		return ReflectionKit.getSuperClassGenricType(getClass(), 0);
+	}
+
+	/**
+	 * AutoSqlInjector 注入的 MappedStatement ID
+	 */
+	protected String sqlStatement(SqlMethod sqlMethod) {
+		return currentMapperClass().getName() + "." + sqlMethod.getMethod();
+	}
+
+	/**
+	 * 判断 AutoSqlInjector 是否注入了该方法（XML 覆盖或方言不支持时可能未注入）
+	 */
+	protected boolean hasStatement(SqlMethod sqlMethod) {
+		return sqlSession().getConfiguration().hasStatement(sqlStatement(sqlMethod), false);
+	}
+
+	public void setInsertBatchRowLimit(int insertBatchRowLimit) {
+		this.insertBatchRowLimit = insertBatchRowLimit;
+	}
+
+	public void setUpdateBatchSize(int updateBatchSize) {
+		this.updateBatchSize = updateBatchSize;
+	}
+
 }
@@ -0,0 +1,222 @@
+package org.apache.playframework.service.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.playframework.util.SharedExecutors;
+
+/**
+ * <p>
+ * 主键查询合并加载
+ * </p>
+ * <p>
+ * 请求内的 selectById 先登记 ID 返回 Future，第一次获取结果或达到批量上限时把所有登记的 ID 合并为一次 selectBatchIds，
+ * 避免循环调用 selectById 产生 N+1 查询。
+ * </p>
+ * <p>
+ * thenApply、whenComplete 等派生的 Future 获取结果时同样触发合并查询；CompletableFuture.allOf、异步派生等无法感知的等待，
+ * 由登记后 dispatchDelayMillis 毫秒的定时派发兜底，避免永久阻塞。
+ * </p>
+ * @author willenfoo
+ *
+ */
+class BatchLoader<T> {
+
+	/* 定时派发延迟毫秒数 */
+	static final long DISPATCH_DELAY_MILLIS = 10L;
+
+	private final BaseServiceImpl<?, T> service;
+
+	private final int maxBatchSize;
+
+	private Map<Serializable, BatchFuture<T>> pending = new LinkedHashMap<Serializable, BatchFuture<T>>();
+
+	/* 批次序号，定时派发只处理登记时的批次 */
+	private long batch;
+
+	BatchLoader(BaseServiceImpl<?, T> service, int maxBatchSize) {
+		this.service = service;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * 登记 ID，同一批次内相同 ID 共享 Future
+	 */
+	synchronized CompletableFuture<T> load(Serializable id) {
+		BatchFuture<T> future = pending.get(id);
+		if (future == null) {
+			future = new BatchFuture<T>(this);
+			pending.put(id, future);
+			if (pending.size() >= maxBatchSize) {
+				dispatch();
+			} else if (pending.size() == 1) {
+				schedule(batch);
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * 批次仍未派发时在共享查询线程池派发
+	 */
+	private void schedule(final long scheduled) {
+		SharedExecutors.scheduler().schedule(new Runnable() {
+			public void run() {
+				SharedExecutors.queryExecutor().execute(new Runnable() {
+					public void run() {
+						dispatch(scheduled);
+					}
+				});
+			}
+		}, DISPATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void dispatch(long scheduled) {
+		if (batch == scheduled) {
+			dispatch();
+		}
+	}
+
+	/**
+	 * 合并查询所有登记的 ID
+	 */
+	synchronized void dispatch() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		Map<Serializable, BatchFuture<T>> batch = pending;
+		pending = new LinkedHashMap<Serializable, BatchFuture<T>>();
+		this.batch++;
+		try {
+			List<T> entityList = service.selectBatchIds(new ArrayList<Serializable>(batch.keySet()));
+			/* 按主键字符串匹配，兼容 ID 类型与实体主键类型不一致 */
+			Map<String, T> entities = new HashMap<String, T>(entityList.size() * 2);
+			for (T entity : entityList) {
+				entities.put(String.valueOf(service.keyValue(entity)), entity);
+			}
+			for (Map.Entry<Serializable, BatchFuture<T>> entry : batch.entrySet()) {
+				entry.getValue().complete(entities.get(String.valueOf(entry.getKey())));
+			}
+		} catch (Throwable t) {
+			/* 任何异常都要完成 Future，否则等待方永久阻塞 */
+			for (BatchFuture<T> future : batch.values()) {
+				future.completeExceptionally(t);
+			}
+		}
+	}
+
+	/**
+	 * 获取结果前先触发合并查询，同步派生的 Future 同样如此
+	 */
+	private static class BatchFuture<T> extends CompletableFuture<T> {
+
+		private final BatchLoader<?> loader;
+
+		BatchFuture(BatchLoader<?> loader) {
+			this.loader = loader;
+		}
+
+		@Override
+		public T get() throws InterruptedException, ExecutionException {
+			if (!isDone()) {
+				loader.dispatch();
+			}
+			return super.get();
+		}
+
+		@Override
+		public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			if (!isDone()) {
+				loader.dispatch();
+			}
+			return super.get(timeout, unit);
+		}
+
+		@Override
+		public T join() {
+			if (!isDone()) {
+				loader.dispatch();
+			}
+			return super.join();
+		}
+
+		@Override
+		public T getNow(T valueIfAbsent) {
+			if (!isDone()) {
+				loader.dispatch();
+			}
+			return super.getNow(valueIfAbsent);
+		}
+
+		@Override
+		public <U> CompletableFuture<U> thenApply(Function<? super T, ? extends U> fn) {
+			return dependent(super.thenApply(fn));
+		}
+
+		@Override
+		public CompletableFuture<Void> thenAccept(Consumer<? super T> action) {
+			return dependent(super.thenAccept(action));
+		}
+
+		@Override
+		public CompletableFuture<Void> thenRun(Runnable action) {
+			return dependent(super.thenRun(action));
+		}
+
+		@Override
+		public <U, V> CompletableFuture<V> thenCombine(CompletionStage<? extends U> other,
+				BiFunction<? super T, ? super U, ? extends V> fn) {
+			return dependent(super.thenCombine(other, fn));
+		}
+
+		@Override
+		public <U> CompletableFuture<U> thenCompose(Function<? super T, ? extends CompletionStage<U>> fn) {
+			return dependent(super.thenCompose(fn));
+		}
+
+		@Override
+		public CompletableFuture<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+			return dependent(super.whenComplete(action));
+		}
+
+		@Override
+		public <U> CompletableFuture<U> handle(BiFunction<? super T, Throwable, ? extends U> fn) {
+			return dependent(super.handle(fn));
+		}
+
+		@Override
+		public CompletableFuture<T> exceptionally(Function<Throwable, ? extends T> fn) {
+			return dependent(super.exceptionally(fn));
+		}
+
+		/**
+		 * 派生 Future 包装为同一 loader 的 BatchFuture
+		 */
+		private <U> CompletableFuture<U> dependent(CompletableFuture<U> stage) {
+			final BatchFuture<U> future = new BatchFuture<U>(loader);
+			stage.whenComplete(new BiConsumer<U, Throwable>() {
+				public void accept(U value, Throwable t) {
+					if (t != null) {
+						future.completeExceptionally(t);
+					} else {
+						future.complete(value);
+					}
+				}
+			});
+			return future;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package org.apache.playframework.service.impl;
+
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 请求范围的主键合并加载上下文，由 RequestInterceptor / DubboServiceFilter 在请求开始时开启，请求结束时关闭
+ * @author willenfoo
+ *
+ */
+public class BatchLoaderContext {
+
+	private static final ThreadLocal<Map<BaseServiceImpl<?, ?>, BatchLoader<?>>> LOADERS = new ThreadLocal<Map<BaseServiceImpl<?, ?>, BatchLoader<?>>>();
+
+	/**
+	 * 开启请求范围
+	 */
+	public static void begin() {
+		LOADERS.set(new IdentityHashMap<BaseServiceImpl<?, ?>, BatchLoader<?>>());
+	}
+
+	/**
+	 * 关闭请求范围，未获取结果的登记也会执行
+	 */
+	public static void end() {
+		Map<BaseServiceImpl<?, ?>, BatchLoader<?>> loaders = LOADERS.get();
+		LOADERS.remove();
+		if (loaders != null) {
+			for (BatchLoader<?> loader : loaders.values()) {
+				loader.dispatch();
+			}
+		}
+	}
+
+	public static boolean isActive() {
+		return LOADERS.get() != null;
+	}
+
+	/**
+	 * 登记主键查询，未开启请求范围时直接查询
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> CompletableFuture<T> load(BaseServiceImpl<?, T> service, Serializable id, int maxBatchSize) {
+		Map<BaseServiceImpl<?, ?>, BatchLoader<?>> loaders = LOADERS.get();
+		if (loaders == null) {
+			return CompletableFuture.completedFuture(service.selectById(id));
+		}
+		BatchLoader<T> loader = (BatchLoader<T>) loaders.get(service);
+		if (loader == null) {
+			loader = new BatchLoader<T>(service, maxBatchSize);
+			loaders.put(service, loader);
+		}
+		return loader.load(id);
+	}
+}
@@ -0,0 +1,124 @@
+package org.apache.playframework.service.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+
+/**
+ * <p>
+ * JDBC 批量执行写语句
+ * </p>
+ * <p>
+ * 使用 MyBatis BatchExecutor：连续执行的 SQL 相同时复用同一个 PreparedStatement（addBatch），
+ * 每 batchSize 条 executeBatch 一次，返回每条参数对应的影响行数。
+ * 连接通过 DataSourceUtils 获取，存在 Spring 事务时参与当前事务，否则执行完成后提交。
+ * 参与事务时 BatchExecutor 绕过了事务绑定的 SqlSession，执行后清空其一级缓存，避免同一事务内再查询读到更新前的实体。
+ * </p>
+ * @author willenfoo
+ *
+ */
+class BatchStatementExecutor {
+
+	/**
+	 * 批量执行
+	 * @param sqlSession 当前 SqlSession，参与事务时执行后清空其一级缓存
+	 * @param statement MappedStatement ID
+	 * @param parameters 参数，相同 SQL 的参数应相邻
+	 * @param batchSize 每次 executeBatch 的最大条数
+	 * @return 与 parameters 顺序一致的影响行数，驱动不返回时为 Statement.SUCCESS_NO_INFO
+	 */
+	static int[] execute(SqlSession sqlSession, String statement, List<?> parameters, int batchSize) {
+		int[] counts = new int[parameters.size()];
+		if (counts.length == 0) {
+			return counts;
+		}
+		Configuration configuration = sqlSession.getConfiguration();
+		MappedStatement ms = configuration.getMappedStatement(statement);
+		DataSource dataSource = configuration.getEnvironment().getDataSource();
+		Connection connection = DataSourceUtils.getConnection(dataSource);
+		boolean transactional = DataSourceUtils.isConnectionTransactional(connection, dataSource);
+		/* 不关闭 executor：关闭会关闭连接，连接由 DataSourceUtils 释放 */
+		Executor executor = configuration.newExecutor(new JdbcTransaction(connection), ExecutorType.BATCH);
+		boolean autoCommit = true;
+		boolean success = false;
+		try {
+			autoCommit = connection.getAutoCommit();
+			if (!transactional && autoCommit) {
+				connection.setAutoCommit(false);
+			}
+			int size = Math.max(1, batchSize);
+			int index = 0;
+			for (int i = 0; i < counts.length; i++) {
+				executor.update(ms, parameters.get(i));
+				if ((i + 1) % size == 0 || i == counts.length - 1) {
+					index = flush(executor, counts, index);
+				}
+			}
+			if (!transactional) {
+				executor.commit(true);
+			}
+			success = true;
+			return counts;
+		} catch (SQLException e) {
+			throw new MybatisPlusException("Error: Batch execute " + statement + " failed.", e);
+		} finally {
+			if (!success) {
+				rollback(executor, transactional);
+			}
+			if (transactional) {
+				sqlSession.clearCache();
+			}
+			if (!transactional && autoCommit) {
+				try {
+					connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					// ignore
+				}
+			}
+			DataSourceUtils.releaseConnection(connection, dataSource);
+		}
+	}
+
+	/**
+	 * executeBatch，按执行顺序写入影响行数
+	 * @return 下一条写入位置
+	 */
+	private static int flush(Executor executor, int[] counts, int index) throws SQLException {
+		List<BatchResult> results = executor.flushStatements();
+		for (BatchResult result : results) {
+			int[] updateCounts = result.getUpdateCounts();
+			System.arraycopy(updateCounts, 0, counts, index, updateCounts.length);
+			index += updateCounts.length;
+		}
+		return index;
+	}
+
+	/**
+	 * 丢弃未执行的批次，非 Spring 事务时回滚
+	 */
+	private static void rollback(Executor executor, boolean transactional) {
+		try {
+			if (transactional) {
+				executor.flushStatements(true);
+			} else {
+				executor.rollback(true);
+			}
+		} catch (SQLException e) {
+			// ignore
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+package org.apache.playframework.service.impl;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.playframework.service.FieldFillValue;
+import org.apache.playframework.util.DateUtils;
+
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+
+/**
+ * <p>
+ * 实体字段填充计划
+ * </p>
+ * <p>
+ * 每个实体类解析一次可写属性，生成 setter MethodHandle 与类型转换方式；填充时每批数据只转换一次值，
+ * 每个实体只是直接调用 setter，替代逐个字段的 PropertyUtils 反射。FieldFillValue 按目标字段类型转换（Date/Timestamp/Long）。
+ * </p>
+ * @author willenfoo
+ *
+ */
+class FieldFillPlan {
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final Map<Class<?>, Map<String, Setter>> SETTERS = new ConcurrentHashMap<Class<?>, Map<String, Setter>>();
+
+	/**
+	 * 填充实体集合，值为 null 或实体没有可写属性的字段忽略
+	 * <p>
+	 * FieldFillValue 每批求值一次，共享一次时钟读取；Date 值每个实体一个实例
+	 * </p>
+	 * @param entityList 实体集合
+	 * @param data 属性名 - 值或 FieldFillValue
+	 */
+	static void fill(Collection<?> entityList, Map<String, ?> data) {
+		if (entityList == null || entityList.isEmpty() || data == null || data.isEmpty()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		Class<?> entityClass = null;
+		MethodHandle[] handles = new MethodHandle[data.size()];
+		Object[] values = new Object[data.size()];
+		boolean[] dates = new boolean[data.size()];
+		int count = 0;
+		boolean first = true;
+		for (Object entity : entityList) {
+			if (entity.getClass() != entityClass) {
+				/* 每个实体类只解析、转换一次 */
+				entityClass = entity.getClass();
+				Map<String, Setter> setters = setters(entityClass);
+				count = 0;
+				first = true;
+				for (Map.Entry<String, ?> entry : data.entrySet()) {
+					Setter setter = setters.get(entry.getKey());
+					if (setter == null) {
+						continue;
+					}
+					Object value = entry.getValue();
+					if (value instanceof FieldFillValue) {
+						value = ((FieldFillValue) value).get(now);
+					}
+					value = setter.convert(value);
+					if (value != null) {
+						handles[count] = setter.handle;
+						values[count] = value;
+						dates[count] = value instanceof Date;
+						count++;
+					}
+				}
+			}
+			try {
+				for (int i = 0; i < count; i++) {
+					/* Date 可变，除第一个实体外复制一份，避免实体间共享同一实例 */
+					Object value = dates[i] && !first ? ((Date) values[i]).clone() : values[i];
+					handles[i].invokeExact(entity, value);
+				}
+			} catch (Throwable e) {
+				throw new MybatisPlusException("Error: Can not fill field of " + entityClass.getName(), e);
+			}
+			first = false;
+		}
+	}
+
+	static void fill(Object entity, Map<String, ?> data) {
+		fill(Collections.singletonList(entity), data);
+	}
+
+	/**
+	 * 实体类可写属性，按类缓存
+	 */
+	private static Map<String, Setter> setters(Class<?> entityClass) {
+		Map<String, Setter> setters = SETTERS.get(entityClass);
+		if (setters == null) {
+			setters = new HashMap<String, Setter>();
+			try {
+				BeanInfo beanInfo = Introspector.getBeanInfo(entityClass);
+				MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+				for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+					if (descriptor.getWriteMethod() != null) {
+						MethodHandle handle = lookup.unreflect(descriptor.getWriteMethod()).asType(SETTER_TYPE);
+						setters.put(descriptor.getName(), new Setter(handle, Converter.of(descriptor.getPropertyType())));
+					}
+				}
+			} catch (Exception e) {
+				throw new MybatisPlusException("Error: Can not resolve setters of " + entityClass.getName(), e);
+			}
+			SETTERS.put(entityClass, setters);
+		}
+		return setters;
+	}
+
+	private static class Setter {
+
+		private final MethodHandle handle;
+
+		private final Converter converter;
+
+		Setter(MethodHandle handle, Converter converter) {
+			this.handle = handle;
+			this.converter = converter;
+		}
+
+		Object convert(Object value) {
+			return value == null ? null : converter.convert(value);
+		}
+	}
+
+	/**
+	 * 按属性类型确定的转换方式，与 ReflectUtils.setProperty 一致
+	 */
+	enum Converter {
+
+		STRING {
+			Object convert(Object value) {
+				return value.toString();
+			}
+		},
+		LONG {
+			Object convert(Object value) {
+				if (value instanceof Date) {
+					return ((Date) value).getTime();
+				}
+				return value instanceof Long ? value : Long.valueOf(value.toString());
+			}
+		},
+		INTEGER {
+			Object convert(Object value) {
+				return value instanceof Integer ? value : Integer.valueOf(value.toString());
+			}
+		},
+		DATE {
+			Object convert(Object value) {
+				if (value instanceof Long) {
+					return new Date((Long) value);
+				}
+				return value instanceof Date ? value : DateUtils.format(value.toString());
+			}
+		},
+		TIMESTAMP {
+			Object convert(Object value) {
+				if (value instanceof Timestamp) {
+					return value;
+				} else if (value instanceof Date) {
+					return new Timestamp(((Date) value).getTime());
+				} else if (value instanceof Long) {
+					return new Timestamp((Long) value);
+				}
+				return new Timestamp(DateUtils.format(value.toString()).getTime());
+			}
+		},
+		BIG_DECIMAL {
+			Object convert(Object value) {
+				return value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+			}
+		},
+		NONE {
+			Object convert(Object value) {
+				return value;
+			}
+		};
+
+		abstract Object convert(Object value);
+
+		static Converter of(Class<?> type) {
+			if (String.class.equals(type)) {
+				return STRING;
+			} else if (Long.class.equals(type) || long.class.equals(type)) {
+				return LONG;
+			} else if (Integer.class.equals(type) || int.class.equals(type)) {
+				return INTEGER;
+			} else if (Timestamp.class.equals(type)) {
+				return TIMESTAMP;
+			} else if (Date.class.equals(type)) {
+				return DATE;
+			} else if (BigDecimal.class.equals(type)) {
+				return BIG_DECIMAL;
+			}
+			return NONE;
+		}
+	}
+}
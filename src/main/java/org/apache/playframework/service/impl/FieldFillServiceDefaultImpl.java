@@ -1,5 +1,6 @@
 package org.apache.playframework.service.impl;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -7,9 +8,14 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.playframework.service.FieldFillService;
+import org.apache.playframework.service.FieldFillValue;
 
 public class FieldFillServiceDefaultImpl implements  FieldFillService {
 
+	private static final Map<String, FieldFillValue> INSERT_FILL = Collections.singletonMap("createTime", FieldFillValue.NOW);
+
+	private static final Map<String, FieldFillValue> UPDATE_FILL = Collections.singletonMap("updateTime", FieldFillValue.NOW);
+
 	@Override
 	public Map<String, Object> getInsertData() {
 		Map<String, Object> insertData = new HashMap<String, Object>();
@@ -24,4 +30,14 @@ public class FieldFillServiceDefaultImpl implements  FieldFillService {
 		return updateData;
 	}
 
+	@Override
+	public Map<String, FieldFillValue> getInsertFill() {
+		return INSERT_FILL;
+	}
+
+	@Override
+	public Map<String, FieldFillValue> getUpdateFill() {
+		return UPDATE_FILL;
+	}
+
 }
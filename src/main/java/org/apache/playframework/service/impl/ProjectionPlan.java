@@ -0,0 +1,111 @@
+package org.apache.playframework.service.impl;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.baomidou.mybatisplus.exceptions.MybatisPlusException;
+
+/**
+ * <p>
+ * 实体到 DTO 的属性复制计划
+ * </p>
+ * <p>
+ * 投影查询复用注入语句按实体映射结果，再按属性名复制到 DTO，不在运行时向 Configuration 注册 MappedStatement。
+ * 每对类解析一次 getter / setter MethodHandle，类型转换与 FieldFillPlan 一致。
+ * </p>
+ * @author willenfoo
+ *
+ */
+class ProjectionPlan {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	/* 实体类#DTO 类 - 复制计划 */
+	private static final Map<String, ProjectionPlan> PLANS = new ConcurrentHashMap<String, ProjectionPlan>();
+
+	private final Class<?> projectionClass;
+
+	private final MethodHandle constructor;
+
+	private final MethodHandle[] getters;
+
+	private final MethodHandle[] setters;
+
+	private final FieldFillPlan.Converter[] converters;
+
+	private ProjectionPlan(Class<?> entityClass, Class<?> projectionClass) {
+		this.projectionClass = projectionClass;
+		List<MethodHandle> getters = new ArrayList<MethodHandle>();
+		List<MethodHandle> setters = new ArrayList<MethodHandle>();
+		List<FieldFillPlan.Converter> converters = new ArrayList<FieldFillPlan.Converter>();
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			this.constructor = lookup.findConstructor(projectionClass, MethodType.methodType(void.class))
+					.asType(CONSTRUCTOR_TYPE);
+			Map<String, PropertyDescriptor> readable = new HashMap<String, PropertyDescriptor>();
+			for (PropertyDescriptor descriptor : Introspector.getBeanInfo(entityClass).getPropertyDescriptors()) {
+				if (descriptor.getReadMethod() != null) {
+					readable.put(descriptor.getName(), descriptor);
+				}
+			}
+			for (PropertyDescriptor descriptor : Introspector.getBeanInfo(projectionClass).getPropertyDescriptors()) {
+				PropertyDescriptor source = readable.get(descriptor.getName());
+				if (descriptor.getWriteMethod() == null || source == null) {
+					continue;
+				}
+				getters.add(lookup.unreflect(source.getReadMethod()).asType(GETTER_TYPE));
+				setters.add(lookup.unreflect(descriptor.getWriteMethod()).asType(SETTER_TYPE));
+				converters.add(FieldFillPlan.Converter.of(descriptor.getPropertyType()));
+			}
+		} catch (Exception e) {
+			throw new MybatisPlusException("Error: Can not resolve projection " + projectionClass.getName(), e);
+		}
+		this.getters = getters.toArray(new MethodHandle[getters.size()]);
+		this.setters = setters.toArray(new MethodHandle[setters.size()]);
+		this.converters = converters.toArray(new FieldFillPlan.Converter[converters.size()]);
+	}
+
+	static ProjectionPlan of(Class<?> entityClass, Class<?> projectionClass) {
+		String key = entityClass.getName() + "#" + projectionClass.getName();
+		ProjectionPlan plan = PLANS.get(key);
+		if (plan == null) {
+			plan = new ProjectionPlan(entityClass, projectionClass);
+			PLANS.put(key, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * 复制实体非空属性到新的 DTO
+	 */
+	Object copy(Object entity) {
+		if (entity == null) {
+			return null;
+		}
+		try {
+			Object projection = constructor.invokeExact();
+			for (int i = 0; i < getters.length; i++) {
+				Object value = getters[i].invokeExact(entity);
+				if (value != null) {
+					setters[i].invokeExact(projection, converters[i].convert(value));
+				}
+			}
+			return projection;
+		} catch (Throwable e) {
+			throw new MybatisPlusException("Error: Can not copy " + entity.getClass().getName() + " to "
+					+ projectionClass.getName(), e);
+		}
+	}
+}
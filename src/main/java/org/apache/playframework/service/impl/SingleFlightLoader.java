@@ -0,0 +1,68 @@
+package org.apache.playframework.service.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 同一 KEY 的并发加载合并为一次，其它线程等待并共享结果，防止缓存失效时大量请求同时访问数据库。
+ * 等待超过 waitMillis 时不再等待，自行加载，避免加载线程卡住时拖住所有请求
+ * @author willenfoo
+ *
+ */
+public class SingleFlightLoader {
+
+	private final ConcurrentHashMap<Object, CompletableFuture<Object>> calls = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+	/* 等待其它线程加载的最长毫秒数 */
+	private final long waitMillis;
+
+	public SingleFlightLoader() {
+		this(3000L);
+	}
+
+	public SingleFlightLoader(long waitMillis) {
+		this.waitMillis = waitMillis;
+	}
+
+	/**
+	 * 加载数据，同一 KEY 正在加载时等待其结果，等待超时时直接加载
+	 * @param key
+	 * @param loader
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> V load(Object key, Callable<V> loader) throws Exception {
+		CompletableFuture<Object> call = new CompletableFuture<Object>();
+		CompletableFuture<Object> inflight = calls.putIfAbsent(key, call);
+		if (inflight != null) {
+			try {
+				return (V) inflight.get(waitMillis, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				return loader.call();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Exception) {
+					throw (Exception) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw e;
+			}
+		}
+		try {
+			V value = loader.call();
+			call.complete(value);
+			return value;
+		} catch (Throwable t) {
+			call.completeExceptionally(t);
+			throw t;
+		} finally {
+			calls.remove(key, call);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package org.apache.playframework.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.playframework.cache.CacheSwitcher;
+import org.apache.playframework.mybatisplus.plugins.routing.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * <p>
+ * 共享线程池
+ * </p>
+ * <p>
+ * 并行 COUNT、跨分表查询、分块主键查询共用一个有界查询线程池，队列满时在调用线程执行；
+ * 合并加载的延迟派发与 SQL 指标定时输出共用一个定时线程。线程池在第一次使用时创建，关闭后再次使用会重新创建。
+ * </p>
+ * <p>
+ * 查询任务通过 {@link #submitQuery(Callable)} 提交，在查询线程中恢复调用线程的请求 ID、读写分离标记与缓存开关。
+ * </p>
+ * <p>
+ * 声明为 Spring Bean 时在容器关闭时关闭线程池，避免重新部署时线程持有 webapp ClassLoader：
+ * </p>
+ *
+ * <pre>
+ * &lt;bean class="org.apache.playframework.util.SharedExecutors"&gt;
+ *     &lt;property name="queryThreads" value="8" /&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author willenfoo
+ */
+public class SharedExecutors implements DisposableBean {
+
+	/* 查询线程数 */
+	private static volatile int queryThreads = 8;
+
+	private static ExecutorService queryExecutor;
+
+	private static ScheduledExecutorService scheduler;
+
+	/**
+	 * 有界查询线程池
+	 */
+	public static synchronized ExecutorService queryExecutor() {
+		if (queryExecutor == null || queryExecutor.isShutdown()) {
+			queryExecutor = new ThreadPoolExecutor(queryThreads, queryThreads, 60L, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(queryThreads * 4), threadFactory("shared-query-"),
+					new ThreadPoolExecutor.CallerRunsPolicy());
+		}
+		return queryExecutor;
+	}
+
+	/**
+	 * 提交查询任务，任务执行时使用调用线程的请求 ID、读写分离标记与缓存开关，结束后清除；
+	 * 队列满在调用线程执行时不修改调用线程的上下文
+	 */
+	public static <V> Future<V> submitQuery(final Callable<V> task) {
+		final Thread caller = Thread.currentThread();
+		final String requestId = Request.getId();
+		final Boolean replica = ReadWriteRoutingDataSource.isReplica() ? Boolean.TRUE : null;
+		final Boolean cached = CacheSwitcher.get();
+		return queryExecutor().submit(new Callable<V>() {
+			public V call() throws Exception {
+				if (Thread.currentThread() == caller) {
+					return task.call();
+				}
+				/* Request 保存的 ID 带结尾空格，setId 会再追加 */
+				Request.setId(requestId.trim());
+				Boolean previous = ReadWriteRoutingDataSource.setReplica(replica);
+				CacheSwitcher.set(cached);
+				try {
+					return task.call();
+				} finally {
+					CacheSwitcher.unset();
+					ReadWriteRoutingDataSource.setReplica(previous);
+					Request.unset();
+				}
+			}
+		});
+	}
+
+	/**
+	 * 定时线程
+	 */
+	public static synchronized ScheduledExecutorService scheduler() {
+		if (scheduler == null || scheduler.isShutdown()) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("shared-scheduler-"));
+		}
+		return scheduler;
+	}
+
+	/**
+	 * 关闭线程池，正在执行的任务会被中断
+	 */
+	public static synchronized void shutdown() {
+		if (queryExecutor != null) {
+			queryExecutor.shutdownNow();
+			queryExecutor = null;
+		}
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	private static ThreadFactory threadFactory(final String prefix) {
+		return new ThreadFactory() {
+			private final AtomicInteger index = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, prefix + index.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * 查询线程数，在第一次使用前设置
+	 */
+	public void setQueryThreads(int queryThreads) {
+		SharedExecutors.queryThreads = queryThreads;
+	}
+
+	public void destroy() {
+		shutdown();
+	}
+
+}
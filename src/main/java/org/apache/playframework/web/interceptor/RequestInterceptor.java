@@ -4,11 +4,11 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.playframework.cache.CacheSwitcher;
+import org.apache.playframework.service.impl.BatchLoaderContext;
 import org.apache.playframework.util.HttpServletUtils;
 import org.apache.playframework.util.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
 public class RequestInterceptor extends HandlerInterceptorAdapter {
@@ -29,12 +29,19 @@ public class RequestInterceptor extends HandlerInterceptorAdapter {
 		} else {
 			CacheSwitcher.set(true);
 		}
+		BatchLoaderContext.begin();
 		return true;
 	}
 
-	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
-			ModelAndView modelAndView) {
-		Request.unset();
-		CacheSwitcher.unset();
+	/**
+	 * 处理器抛出异常或视图渲染后都会执行，postHandle 在异常时不执行会把线程变量留给下一个请求
+	 */
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		try {
+			BatchLoaderContext.end();
+		} finally {
+			Request.unset();
+			CacheSwitcher.unset();
+		}
 	}
 }
@@ -0,0 +1,167 @@
+package org.apache.playframework.mybatisplus.mapper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.playframework.mybatisplus.toolkit.SqlNormalizer;
+import org.apache.playframework.mybatisplus.toolkit.SqlSegments;
+import org.junit.Test;
+
+/**
+ * <p>
+ * EntityWrapperSqlSource 按空值掩码缓存测试
+ * </p>
+ * <p>
+ * 原始 SqlSource 按 AutoSqlInjector 脚本的规则生成 SQL：非空字段一个条件，sqlSegment 条件部分在 WHERE 内，
+ * GROUP BY / ORDER BY 部分在 WHERE 后。
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class EntityWrapperSqlSourceTest {
+
+	private final Configuration configuration = new Configuration();
+
+	private final ScriptSqlSource delegate = new ScriptSqlSource();
+
+	private final EntityWrapperSqlSource sqlSource = new EntityWrapperSqlSource(configuration, delegate,
+			new String[] { "name", "age" }, new boolean[] { false, false }, null, null, 16);
+
+	@Test
+	public void sameMaskReusesTemplate() {
+		assertSql(new User("a", null), "AND (age > 18)");
+		assertSql(new User("b", null), "AND (age > 20)");
+		assertEquals(1, delegate.calls);
+	}
+
+	@Test
+	public void differentMaskBuildsTemplate() {
+		assertSql(new User("a", null), "AND (age > 18)");
+		assertSql(new User(null, 18), "AND (age > 18)");
+		assertSql(new User("a", 18), null);
+		assertSql(new User("a", 18), null);
+		assertEquals(3, delegate.calls);
+	}
+
+	@Test
+	public void orderByOnlySegmentHasNoWhere() {
+		assertEquals("SELECT * FROM user ORDER BY id", sql(new User(null, null), " ORDER BY id"));
+		assertEquals("SELECT * FROM user ORDER BY name", sql(new User(null, null), " ORDER BY name"));
+		assertEquals(1, delegate.calls);
+	}
+
+	@Test
+	public void conditionAndOrderBy() {
+		assertSql(new User("a", null), "AND (age > 18) ORDER BY id");
+		assertSql(new User("b", null), "AND (age > 20) GROUP BY name ORDER BY id DESC");
+		assertSql(new User(null, null), "OR (age > 20) ORDER BY id");
+		assertEquals(2, delegate.calls);
+	}
+
+	@Test
+	public void parameterSegmentUsesDelegate() {
+		assertSql(new User("a", null), "AND (age > #{age})");
+		assertSql(new User("a", null), "AND (age > #{age})");
+		/* 不缓存，每次都调用原始 SqlSource */
+		assertEquals(2, delegate.calls);
+	}
+
+	/**
+	 * 缓存生成的 SQL 与原始 SqlSource 生成的 SQL 一致（忽略空白）
+	 */
+	private void assertSql(User user, String sqlSegment) {
+		Map<String, Object> param = param(user, sqlSegment);
+		int calls = delegate.calls;
+		String expected = SqlNormalizer.normalize(delegate.getBoundSql(param).getSql());
+		delegate.calls = calls;
+		assertEquals(expected, sql(user, sqlSegment));
+	}
+
+	private String sql(User user, String sqlSegment) {
+		return SqlNormalizer.normalize(sqlSource.getBoundSql(param(user, sqlSegment)).getSql());
+	}
+
+	private static Map<String, Object> param(User user, String sqlSegment) {
+		Map<String, Object> param = new HashMap<String, Object>();
+		param.put("ew", new SegmentWrapper(user, sqlSegment));
+		return param;
+	}
+
+	/**
+	 * 模拟注入脚本：&lt;where&gt; 内为字段条件与 sqlSegment 条件部分，之后为 GROUP BY / ORDER BY 部分
+	 */
+	private class ScriptSqlSource implements SqlSource {
+
+		/* 被 EntityWrapperSqlSource 调用的次数 */
+		private int calls;
+
+		public BoundSql getBoundSql(Object parameterObject) {
+			calls++;
+			EntityWrapper<?> ew = (EntityWrapper<?>) ((Map<?, ?>) parameterObject).get("ew");
+			User user = (User) ew.getEntity();
+			List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>();
+			StringBuilder where = new StringBuilder();
+			if (user.getName() != null) {
+				where.append(" AND name=?");
+				parameterMappings.add(new ParameterMapping.Builder(configuration, "ew.entity.name", Object.class).build());
+			}
+			if (user.getAge() != null) {
+				where.append(" AND age=?");
+				parameterMappings.add(new ParameterMapping.Builder(configuration, "ew.entity.age", Object.class).build());
+			}
+			where.append(' ').append(SqlSegments.condition(ew.getSqlSegment()));
+			String condition = where.toString().trim().replaceFirst("^(?i)(AND|OR)\\s", "");
+			StringBuilder sql = new StringBuilder("SELECT * FROM user");
+			if (condition.length() > 0) {
+				sql.append(" WHERE ").append(condition);
+			}
+			sql.append(' ').append(SqlSegments.tail(ew.getSqlSegment()));
+			return new BoundSql(configuration, sql.toString(), parameterMappings, parameterObject);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class SegmentWrapper extends EntityWrapper<User> {
+
+		private final String sqlSegment;
+
+		SegmentWrapper(User user, String sqlSegment) {
+			super(user);
+			this.sqlSegment = sqlSegment;
+		}
+
+		@Override
+		public String getSqlSegment() {
+			return sqlSegment;
+		}
+	}
+
+	public static class User {
+
+		private String name;
+
+		private Integer age;
+
+		public User(String name, Integer age) {
+			this.name = name;
+			this.age = age;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Integer getAge() {
+			return age;
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package org.apache.playframework.mybatisplus.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+/**
+ * <p>
+ * IdListSqlSource 分桶测试
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class IdListSqlSourceTest {
+
+	private static final String SQL = "SELECT * FROM user WHERE id IN (" + IdListSqlSource.IDS + ")";
+
+	private final Configuration configuration = new Configuration();
+
+	/* 原始 SqlSource，只在无法分桶时调用 */
+	private final BoundSql delegateBoundSql = new BoundSql(configuration, "DELEGATE",
+			Collections.<ParameterMapping> emptyList(), null);
+
+	private final SqlSource delegate = new SqlSource() {
+		public BoundSql getBoundSql(Object parameterObject) {
+			return delegateBoundSql;
+		}
+	};
+
+	@Test
+	public void bucketIsPowerOfTwo() {
+		assertEquals(1, IdListSqlSource.bucket(1));
+		assertEquals(2, IdListSqlSource.bucket(2));
+		assertEquals(4, IdListSqlSource.bucket(3));
+		assertEquals(8, IdListSqlSource.bucket(5));
+		assertEquals(1024, IdListSqlSource.bucket(1024));
+		assertEquals(2048, IdListSqlSource.bucket(1025));
+	}
+
+	@Test
+	public void padsWithLastId() {
+		IdListSqlSource sqlSource = new IdListSqlSource(configuration, delegate, SQL);
+		BoundSql boundSql = sqlSource.getBoundSql(param(Arrays.asList(10L, 20L, 30L)));
+		assertEquals("SELECT * FROM user WHERE id IN (?,?,?,?)", boundSql.getSql());
+		assertEquals(4, boundSql.getParameterMappings().size());
+		assertEquals(10L, boundSql.getAdditionalParameter("__id_0"));
+		assertEquals(30L, boundSql.getAdditionalParameter("__id_2"));
+		assertEquals(30L, boundSql.getAdditionalParameter("__id_3"));
+	}
+
+	@Test
+	public void sameBucketSharesSql() {
+		IdListSqlSource sqlSource = new IdListSqlSource(configuration, delegate, SQL);
+		BoundSql five = sqlSource.getBoundSql(param(ids(5)));
+		BoundSql eight = sqlSource.getBoundSql(param(ids(8)));
+		assertSame(five.getSql(), eight.getSql());
+		assertSame(five.getParameterMappings(), eight.getParameterMappings());
+	}
+
+	@Test
+	public void oracleBucketCappedAtMaxSize() {
+		IdListSqlSource sqlSource = new IdListSqlSource(configuration, delegate, SQL, IdListSqlSource.ORACLE_MAX_IN_SIZE);
+		assertEquals(1000, sqlSource.getBoundSql(param(ids(600))).getParameterMappings().size());
+		assertSame(delegateBoundSql, sqlSource.getBoundSql(param(ids(1001))));
+	}
+
+	@Test
+	public void emptyListUsesDelegate() {
+		IdListSqlSource sqlSource = new IdListSqlSource(configuration, delegate, SQL);
+		assertSame(delegateBoundSql, sqlSource.getBoundSql(param(new ArrayList<Long>())));
+	}
+
+	private static Map<String, Object> param(List<Long> ids) {
+		Map<String, Object> param = new HashMap<String, Object>();
+		param.put("list", ids);
+		return param;
+	}
+
+	private static List<Long> ids(int size) {
+		List<Long> ids = new ArrayList<Long>(size);
+		for (long i = 1; i <= size; i++) {
+			ids.add(i);
+		}
+		return ids;
+	}
+
+}
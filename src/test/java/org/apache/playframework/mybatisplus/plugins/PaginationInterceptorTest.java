@@ -0,0 +1,56 @@
+package org.apache.playframework.mybatisplus.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * PaginationInterceptor 游标分页 SQL 改写测试
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class PaginationInterceptorTest {
+
+	@Test
+	public void firstPageOnlyOrders() {
+		assertEquals("SELECT id,name FROM user ORDER BY id ASC",
+				PaginationInterceptor.keysetSql("SELECT id,name FROM user", new String[] { "id" }, false, true));
+	}
+
+	@Test
+	public void addsWhereWithoutCondition() {
+		assertEquals("SELECT id,name FROM user WHERE (id > ?) ORDER BY id ASC",
+				PaginationInterceptor.keysetSql("SELECT id,name FROM user", new String[] { "id" }, true, true));
+	}
+
+	@Test
+	public void wrapsConditionAndReplacesOrderBy() {
+		assertEquals("SELECT id,name FROM user WHERE (a=? OR b=?) AND ((create_time < ?) OR (create_time = ? AND id < ?))"
+				+ " ORDER BY create_time DESC, id DESC",
+				PaginationInterceptor.keysetSql("SELECT id,name FROM user WHERE a=? OR b=? ORDER BY name",
+						new String[] { "create_time", "id" }, true, false));
+	}
+
+	@Test
+	public void usesOutermostWhere() {
+		assertEquals("SELECT id FROM (SELECT id FROM t WHERE x=1) s WHERE (y=2) AND ((id > ?)) ORDER BY id ASC",
+				PaginationInterceptor.keysetSql("SELECT id FROM (SELECT id FROM t WHERE x=1) s WHERE y=2",
+						new String[] { "id" }, true, true));
+		assertEquals("SELECT id FROM t WHERE (name='ORDER BY x') AND ((id > ?)) ORDER BY id ASC",
+				PaginationInterceptor.keysetSql("SELECT id FROM t WHERE name='ORDER BY x'", new String[] { "id" }, true,
+						true));
+	}
+
+	@Test
+	public void fallsBackWhenNotRewritable() {
+		assertNull(PaginationInterceptor.keysetSql("SELECT type,COUNT(1) FROM t GROUP BY type", new String[] { "type" },
+				true, true));
+		assertNull(PaginationInterceptor.keysetSql("SELECT id FROM t ORDER BY FIELD(id,?)", new String[] { "id" }, true,
+				true));
+		assertNull(PaginationInterceptor.keysetSql("SELECT user_id AS uid FROM t", new String[] { "uid" }, true, true));
+	}
+
+}
@@ -0,0 +1,60 @@
+package org.apache.playframework.mybatisplus.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * ShardingInterceptor 分表结果归并测试
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class ShardingInterceptorTest {
+
+	private static final Comparator<Object> ASC = new Comparator<Object>() {
+		public int compare(Object a, Object b) {
+			return ((Integer) a).compareTo((Integer) b);
+		}
+	};
+
+	@Test
+	public void mergesSortedShards() {
+		List<List<Object>> results = new ArrayList<List<Object>>();
+		results.add(Arrays.<Object> asList(1, 4, 7));
+		results.add(Collections.<Object> emptyList());
+		results.add(Arrays.<Object> asList(2, 3, 8, 9));
+		results.add(Arrays.<Object> asList(5));
+		assertEquals(Arrays.<Object> asList(1, 2, 3, 4, 5, 7, 8, 9), ShardingInterceptor.merge(results, ASC));
+	}
+
+	@Test
+	public void equalRowsKeepShardOrder() {
+		Object first = new Integer(1000);
+		Object second = new Integer(1000);
+		List<List<Object>> results = new ArrayList<List<Object>>();
+		results.add(Arrays.asList(first));
+		results.add(Arrays.asList(second));
+		List<Object> rows = ShardingInterceptor.merge(results, ASC);
+		assertEquals(2, rows.size());
+		assertSame(first, rows.get(0));
+		assertSame(second, rows.get(1));
+	}
+
+	@Test
+	public void concatenatesWithoutComparator() {
+		List<List<Object>> results = new ArrayList<List<Object>>();
+		results.add(Arrays.<Object> asList(3, 1));
+		results.add(Arrays.<Object> asList(2));
+		assertEquals(Arrays.<Object> asList(3, 1, 2), ShardingInterceptor.merge(results, null));
+	}
+
+}
@@ -0,0 +1,89 @@
+package org.apache.playframework.mybatisplus.plugins.pagination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * CountCache 测试
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class CountCacheTest {
+
+	private static final List<Object> NO_PARAMETERS = Collections.emptyList();
+
+	@Test
+	public void keyIncludesParameters() {
+		CountCache cache = new CountCache(60, 10);
+		cache.put("user", "SELECT COUNT(1) FROM user WHERE age=?", Arrays.<Object> asList(18), cache.version("user"), 3);
+		assertEquals(Integer.valueOf(3), cache.get("user", "SELECT COUNT(1) FROM user WHERE age=?", Arrays.<Object> asList(18)));
+		assertNull(cache.get("user", "SELECT COUNT(1) FROM user WHERE age=?", Arrays.<Object> asList(20)));
+	}
+
+	@Test
+	public void invalidateDropsTable() {
+		CountCache cache = new CountCache(60, 10);
+		cache.put("user", "a", NO_PARAMETERS, cache.version("user"), 1);
+		cache.put("order", "b", NO_PARAMETERS, cache.version("order"), 2);
+		cache.invalidate("user");
+		assertNull(cache.get("user", "a", NO_PARAMETERS));
+		assertEquals(Integer.valueOf(2), cache.get("order", "b", NO_PARAMETERS));
+	}
+
+	@Test
+	public void countStartedBeforeUpdateIsNotCached() {
+		CountCache cache = new CountCache(60, 10);
+		long version = cache.version("user");
+		cache.invalidate("user");
+		cache.put("user", "a", NO_PARAMETERS, version, 1);
+		assertNull(cache.get("user", "a", NO_PARAMETERS));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		CountCache cache = new CountCache(60, 2);
+		cache.put("user", "a", NO_PARAMETERS, cache.version("user"), 1);
+		cache.put("user", "b", NO_PARAMETERS, cache.version("user"), 2);
+		cache.get("user", "a", NO_PARAMETERS);
+		cache.put("user", "c", NO_PARAMETERS, cache.version("user"), 3);
+		assertEquals(Integer.valueOf(1), cache.get("user", "a", NO_PARAMETERS));
+		assertNull(cache.get("user", "b", NO_PARAMETERS));
+		assertEquals(Integer.valueOf(3), cache.get("user", "c", NO_PARAMETERS));
+	}
+
+	@Test
+	public void evictsVersionStaleBeforeLive() {
+		CountCache cache = new CountCache(60, 2);
+		cache.put("user", "a", NO_PARAMETERS, cache.version("user"), 1);
+		cache.put("order", "b", NO_PARAMETERS, cache.version("order"), 2);
+		cache.invalidate("order");
+		cache.put("user", "c", NO_PARAMETERS, cache.version("user"), 3);
+		assertEquals(Integer.valueOf(1), cache.get("user", "a", NO_PARAMETERS));
+		assertEquals(Integer.valueOf(3), cache.get("user", "c", NO_PARAMETERS));
+	}
+
+	@Test
+	public void expiredEntryMisses() {
+		CountCache cache = new CountCache(0, 10);
+		cache.put("user", "a", NO_PARAMETERS, cache.version("user"), 1);
+		sleep(5);
+		assertNull(cache.get("user", "a", NO_PARAMETERS));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.apache.playframework.mybatisplus.toolkit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * PaginationInterceptor.buildSql 格式化基准
+ * </p>
+ * <p>
+ * regex 为原实现：每次编译注释正则并执行三次 replaceAll；normalize 为单次扫描的 SqlNormalizer；
+ * cached 为按原始 SQL 缓存格式化结果，与 PaginationInterceptor 一致。三者都追加 from_api 追踪注释。
+ * 不随单元测试执行，在 IDE 中运行 main 方法。
+ * </p>
+ *
+ * @author willenfoo
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlNormalizerBenchmark {
+
+	private static final String TAG = " /*from_api:c2f7d3a4-0000-4a6e-9d1b-5f6e7a8b9c0d 12345@10.0.0.1 spid=1 dbname=null*/";
+
+	/* 注入语句：selectById 与带 EntityWrapper 条件的 selectList */
+	@Param({ "SELECT id AS id,name,age,create_time AS createTime FROM user WHERE id=?",
+			"SELECT id AS id,name,age,create_time AS createTime FROM user \n WHERE \n name=? \n AND age=? \n AND (status = 1 AND dept_id IN (1,2,3)) ORDER BY create_time DESC LIMIT 0,20" })
+	private String sql;
+
+	private final Map<String, String> normalizedSqls = new LinkedHashMap<String, String>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > 1024;
+		}
+	};
+
+	@Setup
+	public void setup() {
+		normalizedSqls.clear();
+	}
+
+	@Benchmark
+	public String regex() {
+		Pattern p = Pattern.compile("(?ms)('(?:''|[^'])*')|--.*?$|/\\*.*?\\*/");
+		String result = p.matcher(sql).replaceAll("$1");
+		StringBuilder sb = new StringBuilder(result);
+		sb.append(TAG);
+		return sb.toString().replaceAll("\n", " ").replaceAll("\t", " ").replaceAll("[\\s]+", " ");
+	}
+
+	@Benchmark
+	public String normalize() {
+		String normalized = SqlNormalizer.normalize(sql);
+		StringBuilder sb = new StringBuilder(normalized.length() + 128);
+		return sb.append(normalized).append(TAG).toString();
+	}
+
+	@Benchmark
+	public String cached() {
+		String normalized;
+		synchronized (normalizedSqls) {
+			normalized = normalizedSqls.get(sql);
+		}
+		if (normalized == null) {
+			normalized = SqlNormalizer.normalize(sql);
+			synchronized (normalizedSqls) {
+				normalizedSqls.put(sql, normalized);
+			}
+		}
+		StringBuilder sb = new StringBuilder(normalized.length() + 128);
+		return sb.append(normalized).append(TAG).toString();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SqlNormalizerBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.apache.playframework.mybatisplus.toolkit;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * SqlNormalizer 测试
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class SqlNormalizerTest {
+
+	@Test
+	public void collapsesWhitespace() {
+		assertEquals("SELECT id, name FROM user", SqlNormalizer.normalize("SELECT  id,\n\tname\r\nFROM user"));
+		assertEquals("SELECT 1", SqlNormalizer.normalize("  SELECT 1  "));
+	}
+
+	@Test
+	public void removesComments() {
+		assertEquals("SELECT id FROM user WHERE a=1",
+				SqlNormalizer.normalize("SELECT id -- comment\nFROM user /* x */ WHERE a=1"));
+		assertEquals("SELECT 1", SqlNormalizer.normalize("SELECT 1 /* unterminated"));
+	}
+
+	@Test
+	public void keepsQuotedText() {
+		assertEquals("SELECT 'a  --  b' FROM t WHERE c='it''s  /* no */'",
+				SqlNormalizer.normalize("SELECT 'a  --  b' FROM t WHERE c='it''s  /* no */'"));
+		assertEquals("SELECT \"x  y\" FROM t WHERE s='a\\'  b'",
+				SqlNormalizer.normalize("SELECT \"x  y\" FROM t WHERE s='a\\'  b'"));
+	}
+
+	@Test
+	public void commentTextCannotCloseComment() {
+		StringBuilder sb = new StringBuilder("/*");
+		SqlNormalizer.appendCommentText(sb, "a */ b\n c");
+		assertEquals("/*a * / b c", sb.toString());
+	}
+
+}
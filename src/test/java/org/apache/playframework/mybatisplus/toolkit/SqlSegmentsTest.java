@@ -0,0 +1,43 @@
+package org.apache.playframework.mybatisplus.toolkit;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * SqlSegments 测试
+ * </p>
+ *
+ * @author willenfoo
+ */
+public class SqlSegmentsTest {
+
+	@Test
+	public void splitsConditionAndOrderBy() {
+		assertEquals("AND (a=1) ", SqlSegments.condition("AND (a=1) ORDER BY x"));
+		assertEquals("ORDER BY x", SqlSegments.tail("AND (a=1) ORDER BY x"));
+	}
+
+	@Test
+	public void orderByOnly() {
+		assertEquals("", SqlSegments.condition(" ORDER BY x"));
+		assertEquals("ORDER BY x", SqlSegments.tail(" ORDER BY x"));
+	}
+
+	@Test
+	public void ignoresKeywordsInQuotesAndSubqueries() {
+		String segment = "AND (name='ORDER BY') GROUP BY a HAVING c>1 ORDER BY b";
+		assertEquals("AND (name='ORDER BY') ", SqlSegments.condition(segment));
+		assertEquals("GROUP BY a HAVING c>1 ORDER BY b", SqlSegments.tail(segment));
+		assertEquals(-1, SqlSegments.tailIndex("AND (x IN (SELECT y FROM t ORDER BY y))"));
+		assertEquals(-1, SqlSegments.tailIndex("AND (order_by=1)"));
+	}
+
+	@Test
+	public void nullSegment() {
+		assertEquals("", SqlSegments.condition(null));
+		assertEquals("", SqlSegments.tail(null));
+	}
+
+}